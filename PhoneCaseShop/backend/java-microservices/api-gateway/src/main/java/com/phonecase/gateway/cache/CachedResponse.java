@@ -0,0 +1,13 @@
+package com.phonecase.gateway.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+    private final byte[] body;
+    private final String contentType;
+    private final String etag;
+    private final long ttlNanos;
+}
@@ -0,0 +1,184 @@
+package com.phonecase.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.phonecase.gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory cache of public catalog responses, bounded by total body size.
+// Each entry expires after the TTL of the route it was cached for.
+@Component
+public class ResponseCache {
+    
+    @Autowired
+    private ResponseCacheProperties properties;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    private final List<PathPattern> patterns = new ArrayList<>();
+    private final List<Duration> ttls = new ArrayList<>();
+    
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    
+    // Bumped by purge(). A miss stores its body only if no purge ran while it was in flight.
+    private final AtomicLong generation = new AtomicLong();
+    
+    private Cache<String, CachedResponse> cache;
+    
+    @PostConstruct
+    void init() {
+        for (ResponseCacheProperties.Route route : properties.getRoutes()) {
+            patterns.add(PathPatternParser.defaultInstance.parse(route.getPath()));
+            ttls.add(route.getTtl());
+        }
+        
+        cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBytes())
+                .weigher((String key, CachedResponse value) -> key.length() + value.getBody().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.getTtlNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return value.getTtlNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        
+        if (meterRegistry != null) {
+            // cache.gets{result=hit|miss} under cache=gateway.responses gives the hit ratio
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.responses");
+            FunctionCounter.builder("gateway.response.cache.served", bytesServed, LongAdder::doubleValue)
+                    .baseUnit("bytes")
+                    .description("Response bytes written from the gateway cache")
+                    .register(meterRegistry);
+            FunctionCounter.builder("gateway.response.cache.not.modified", notModified, LongAdder::doubleValue)
+                    .description("Conditional requests answered with 304")
+                    .register(meterRegistry);
+            Gauge.builder("gateway.response.cache.weight", this, ResponseCache::weightedSize)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+    
+    // TTL of the first configured route matching the path, or null if the path is not cacheable
+    public Duration ttlFor(PathContainer path) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matches(path)) {
+                return ttls.get(i);
+            }
+        }
+        return null;
+    }
+    
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+    
+    public int getMaxEntryBytes() {
+        return properties.getMaxEntryBytes();
+    }
+    
+    // Read before a miss is proxied and passed back to put()
+    public long generation() {
+        return generation.get();
+    }
+    
+    // Caches the body and returns the stored entry, or an uncached entry if the body is too large
+    // or the cache was purged since the given generation
+    public CachedResponse put(String key, byte[] body, String contentType, Duration ttl, long readAt) {
+        CachedResponse response = new CachedResponse(body, contentType, etag(body), ttl.toNanos());
+        if (body.length <= properties.getMaxEntryBytes() && generation.get() == readAt) {
+            cache.put(key, response);
+            if (generation.get() != readAt) {
+                // A purge ran between the check and the put, it must still win
+                cache.invalidate(key);
+            }
+        }
+        return response;
+    }
+    
+    public long purge() {
+        generation.incrementAndGet();
+        long size = cache.estimatedSize();
+        cache.invalidateAll();
+        return size;
+    }
+    
+    public void recordServed(int bytes) {
+        bytesServed.add(bytes);
+    }
+    
+    public void recordNotModified() {
+        notModified.increment();
+    }
+    
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", properties.isEnabled());
+        result.put("entries", cache.estimatedSize());
+        result.put("weightBytes", weightedSize());
+        result.put("maxBytes", properties.getMaxBytes());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRatio", stats.hitRate());
+        result.put("notModified", notModified.sum());
+        result.put("bytesServed", bytesServed.sum());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+    
+    private double weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+    
+    // Strong validator derived from the body, so identical content keeps the same ETag across refreshes
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
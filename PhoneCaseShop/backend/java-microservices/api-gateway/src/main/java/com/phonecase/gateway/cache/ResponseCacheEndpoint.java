@@ -0,0 +1,23 @@
+package com.phonecase.gateway.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Read-only view of the response cache at /actuator/responsecache, admin only (ActuatorAccessFilter).
+// Purging goes through ResponseCacheController.
+@Component
+@Endpoint(id = "responsecache")
+public class ResponseCacheEndpoint {
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return responseCache.stats();
+    }
+}
@@ -0,0 +1,53 @@
+package com.phonecase.gateway.config;
+
+import com.phonecase.gateway.config.GatewayRoutingProperties.ServiceRoute;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class GatewayResilienceConfig {
+    
+    // Breakers are named after route ids. The time limiter covers every attempt the retry filter
+    // may make inside the breaker, so it never cuts a request off before the route's own timeout.
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> routeCircuitBreakers(GatewayRoutingProperties properties) {
+        Map<String, Duration> limits = new HashMap<>();
+        for (ServiceRoute route : properties.getRoutes()) {
+            limits.put(route.getId(), limitFor(properties, route));
+        }
+        Duration defaultLimit = properties.getResponseTimeout()
+                .multipliedBy(properties.getRetries() + 1L)
+                .plusSeconds(1);
+        
+        GatewayRoutingProperties.CircuitBreaker settings = properties.getCircuitBreaker();
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .slidingWindowSize(settings.getSlidingWindowSize())
+                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(settings.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(settings.getPermittedCallsInHalfOpenState())
+                .build();
+        
+        return factory -> factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+                .circuitBreakerConfig(circuitBreakerConfig)
+                .timeLimiterConfig(TimeLimiterConfig.custom()
+                        .timeoutDuration(limits.getOrDefault(id, defaultLimit))
+                        .build())
+                .build());
+    }
+    
+    private static Duration limitFor(GatewayRoutingProperties properties, ServiceRoute route) {
+        return properties.responseTimeoutFor(route)
+                .multipliedBy(properties.retriesFor(route) + 1L)
+                .plusSeconds(1);
+    }
+}
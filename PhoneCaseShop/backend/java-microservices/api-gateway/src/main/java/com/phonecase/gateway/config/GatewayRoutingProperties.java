@@ -0,0 +1,64 @@
+package com.phonecase.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.routing")
+public class GatewayRoutingProperties {
+    
+    private List<ServiceRoute> routes = new ArrayList<>();
+    
+    // Defaults for every route, a route can override the response timeout and retries
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(10);
+    private int retries = 1;
+    
+    // Retries across a route may add at most this fraction of extra load, plus a small floor per second
+    private double retryBudgetRatio = 0.2;
+    private int retryBudgetMinPerSecond = 5;
+    
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    
+    public Duration responseTimeoutFor(ServiceRoute route) {
+        return route.getResponseTimeout() != null ? route.getResponseTimeout() : responseTimeout;
+    }
+    
+    public int retriesFor(ServiceRoute route) {
+        return route.getRetries() != null ? route.getRetries() : retries;
+    }
+    
+    @Data
+    public static class ServiceRoute {
+        private String id;
+        // Gateway path prefix, matched on whole segments (/api/users matches /api/users and /api/users/1)
+        private String path;
+        // Eureka service id, requests are sent to lb://<service>
+        private String service;
+        // Replaces the matched prefix in the forwarded path
+        private String target;
+        // Optional HTTP method restriction
+        private String method;
+        // Match only the path itself, not paths below it
+        private boolean exact;
+        private Duration responseTimeout;
+        private Integer retries;
+        // Wrap GET/HEAD requests in a circuit breaker named after the route id
+        private boolean circuitBreaker = true;
+    }
+    
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 3;
+    }
+}
@@ -0,0 +1,39 @@
+package com.phonecase.gateway.config;
+
+import com.phonecase.common.security.InternalIdentitySigner;
+import com.phonecase.common.security.JwtTokenCache;
+import com.phonecase.common.security.JwtUtil;
+import com.phonecase.common.security.PublicEndpointMatcher;
+import com.phonecase.common.security.PublicEndpointMatcher.Rule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+// The gateway does not component-scan com.phonecase.common (it would pull in the servlet JwtFilter),
+// so the reactive-safe security beans are imported explicitly.
+@Configuration
+@Import({JwtUtil.class, JwtTokenCache.class, InternalIdentitySigner.class})
+public class GatewaySecurityConfig {
+    
+    // Public endpoints as seen by the gateway, before paths are rewritten for the services
+    @Bean
+    public PublicEndpointMatcher gatewayPublicEndpoints() {
+        return new PublicEndpointMatcher(List.of(
+            // Auth endpoints
+            Rule.prefix("/login"),
+            Rule.prefix("/register"),
+            Rule.prefix("/api/auth/"),
+            Rule.exact("/api/admin/login"),
+            Rule.exact("/api/admin/check-auth"),
+            // Product catalog - GET only, admin product routes stay protected
+            Rule.getExact("/api/products"),
+            Rule.getPrefixExcludingAdmin("/api/products/"),
+            // Health checks; the gateway's own actuator endpoints are guarded by ActuatorAccessFilter
+            Rule.exact("/actuator/health"),
+            Rule.prefix("/actuator/health/"),
+            Rule.exact("/health")
+        ));
+    }
+}
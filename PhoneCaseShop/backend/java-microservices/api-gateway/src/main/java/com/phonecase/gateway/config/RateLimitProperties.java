@@ -0,0 +1,41 @@
+package com.phonecase.gateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // Bound on tracked (route, client) buckets; idle buckets are dropped after idle-timeout
+    private long maxClients = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    
+    // Applies to every route, and fills in whatever a route override leaves unset
+    private Limit defaultLimit = new Limit(20.0, 40, 200);
+    
+    // Overrides keyed by gateway route id
+    private Map<String, Limit> routes = new HashMap<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        // Tokens added per second; 0 disables rate limiting for the route
+        private Double replenishRate;
+        // Maximum tokens a client can accumulate (burst size)
+        private Integer burstCapacity;
+        // In-flight requests allowed on the route across all clients; 0 disables the cap
+        private Integer maxConcurrent;
+    }
+}
@@ -0,0 +1,32 @@
+package com.phonecase.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound for all cached bodies together
+    private long maxBytes = 64L * 1024 * 1024;
+    
+    // Larger responses are passed through without caching
+    private int maxEntryBytes = 2 * 1024 * 1024;
+    
+    // Checked in order, the first matching path pattern decides the TTL
+    private List<Route> routes = new ArrayList<>();
+    
+    @Data
+    public static class Route {
+        private String path;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,27 @@
+package com.phonecase.gateway.controller;
+
+import com.phonecase.common.exception.ErrorResponse;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+// Target of the circuit breaker fallback: answers fast while a backend is failing or its breaker is open
+@RestController
+public class FallbackController {
+    
+    @RequestMapping("/fallback")
+    public ResponseEntity<ErrorResponse> fallback(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String service = route != null ? route.getUri().getHost() : "Service";
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(new ErrorResponse("SERVICE_UNAVAILABLE",
+                        service + " is temporarily unavailable, please try again later",
+                        HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+}
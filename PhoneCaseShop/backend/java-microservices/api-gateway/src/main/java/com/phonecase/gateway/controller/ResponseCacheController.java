@@ -0,0 +1,64 @@
+package com.phonecase.gateway.controller;
+
+import com.phonecase.common.exception.ErrorResponse;
+import com.phonecase.common.security.JwtClaims;
+import com.phonecase.common.security.JwtTokenCache;
+import com.phonecase.common.security.JwtUtil;
+import com.phonecase.gateway.cache.ResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Handled by the gateway itself (controllers take precedence over proxied routes),
+// so the admin token is checked here rather than by JwtAuthenticationFilter.
+@RestController
+@RequestMapping("/api/admin/cache")
+public class ResponseCacheController {
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+    
+    @DeleteMapping("/products")
+    public ResponseEntity<?> purgeProducts(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return error(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Missing or invalid authorization header");
+        }
+        
+        JwtClaims claims;
+        try {
+            claims = jwtTokenCache.get(authHeader.substring(7), jwtUtil::parseToken);
+        } catch (Exception e) {
+            return error(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Invalid token: " + e.getMessage());
+        }
+        if (claims.isExpired()) {
+            return error(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Token has expired");
+        }
+        if (!"ADMIN".equals(claims.getRole()) && !"EMPLOYEE".equals(claims.getRole())) {
+            return error(HttpStatus.FORBIDDEN, "FORBIDDEN", "Admin access required");
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Product cache purged");
+        response.put("evicted", responseCache.purge());
+        return ResponseEntity.ok(response);
+    }
+    
+    private ResponseEntity<ErrorResponse> error(HttpStatus status, String errorCode, String message) {
+        return ResponseEntity.status(status).body(new ErrorResponse(errorCode, message, status.value()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.phonecase.gateway.filter;
+
+import com.phonecase.common.security.JwtClaims;
+import com.phonecase.common.security.JwtTokenCache;
+import com.phonecase.common.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// The gateway's own actuator endpoints are served locally, so no GlobalFilter sees them. Only the
+// health check stays public; metrics, circuit breakers and cache stats require an admin token.
+@Component
+public class ActuatorAccessFilter implements WebFilter, Ordered {
+    
+    private static final String ACTUATOR = "/actuator";
+    private static final String HEALTH = "/actuator/health";
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+    
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        if (!path.startsWith(ACTUATOR) || path.equals(HEALTH) || path.startsWith(HEALTH + "/")) {
+            return chain.filter(exchange);
+        }
+        
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED",
+                    "Missing or invalid authorization header");
+        }
+        JwtClaims claims;
+        try {
+            claims = jwtTokenCache.get(authHeader.substring(7), jwtUtil::parseToken);
+        } catch (Exception e) {
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED",
+                    "Invalid token: " + e.getMessage());
+        }
+        if (claims.isExpired()) {
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Token has expired");
+        }
+        if (!"ADMIN".equals(claims.getRole())) {
+            return errorResponseWriter.write(exchange, HttpStatus.FORBIDDEN, "FORBIDDEN", "Admin access required");
+        }
+        return chain.filter(exchange);
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,38 @@
+package com.phonecase.gateway.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonecase.common.exception.ErrorResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+// Writes the same ErrorResponse body the services return from GlobalExceptionHandler
+@Component
+public class ErrorResponseWriter {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String errorCode, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ErrorResponse(errorCode, message, status.value()));
+        } catch (JsonProcessingException e) {
+            body = ("{\"errorCode\":\"" + errorCode + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
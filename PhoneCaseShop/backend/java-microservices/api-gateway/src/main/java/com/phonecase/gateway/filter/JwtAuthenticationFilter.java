@@ -0,0 +1,109 @@
+package com.phonecase.gateway.filter;
+
+import com.phonecase.common.security.InternalIdentitySigner;
+import com.phonecase.common.security.JwtClaims;
+import com.phonecase.common.security.JwtTokenCache;
+import com.phonecase.common.security.JwtUtil;
+import com.phonecase.common.security.PublicEndpointMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Verifies the JWT once at the edge. Bad tokens are rejected before routing, and valid ones are
+// forwarded as signed identity headers that the services' JwtFilter trusts without re-verifying.
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+    
+    public static final int ORDER = -200;
+    
+    // Exchange attributes other gateway filters can read the caller from
+    public static final String USER_EMAIL_ATTR = "userEmail";
+    public static final String USER_ROLE_ATTR = "userRole";
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+    
+    @Autowired
+    private InternalIdentitySigner internalIdentitySigner;
+    
+    @Autowired
+    private PublicEndpointMatcher gatewayPublicEndpoints;
+    
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        
+        // Never let clients supply their own identity headers
+        ServerHttpRequest.Builder forwarded = request.mutate().headers(headers -> {
+            headers.remove(InternalIdentitySigner.USER_EMAIL_HEADER);
+            headers.remove(InternalIdentitySigner.USER_ROLE_HEADER);
+            headers.remove(InternalIdentitySigner.EXPIRES_HEADER);
+            headers.remove(InternalIdentitySigner.SIGNATURE_HEADER);
+        });
+        
+        String method = request.getMethod().name();
+        String path = request.getPath().value();
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        boolean isPublic = gatewayPublicEndpoints.isPublic(method, path);
+        
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (isPublic) {
+                return chain.filter(exchange.mutate().request(forwarded.build()).build());
+            }
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED",
+                    "Missing or invalid authorization header");
+        }
+        
+        String token = authHeader.substring(7);
+        JwtClaims claims;
+        try {
+            claims = jwtTokenCache.get(token, jwtUtil::parseToken);
+        } catch (Exception e) {
+            if (isPublic) {
+                // A stale token must not block public pages; forward without identity
+                return chain.filter(exchange.mutate().request(forwarded.build()).build());
+            }
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED",
+                    "Invalid token: " + e.getMessage());
+        }
+        
+        if (claims.isExpired() || claims.getEmail() == null || claims.getExpiration() == null) {
+            if (isPublic) {
+                return chain.filter(exchange.mutate().request(forwarded.build()).build());
+            }
+            return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Token has expired");
+        }
+        
+        String role = claims.getRole() != null ? claims.getRole() : "";
+        long expiresAt = claims.getExpiration().getTime();
+        String signature = internalIdentitySigner.sign(claims.getEmail(), role, expiresAt);
+        forwarded.headers(headers -> {
+            headers.set(InternalIdentitySigner.USER_EMAIL_HEADER, claims.getEmail());
+            headers.set(InternalIdentitySigner.USER_ROLE_HEADER, role);
+            headers.set(InternalIdentitySigner.EXPIRES_HEADER, Long.toString(expiresAt));
+            headers.set(InternalIdentitySigner.SIGNATURE_HEADER, signature);
+        });
+        
+        exchange.getAttributes().put(USER_EMAIL_ATTR, claims.getEmail());
+        exchange.getAttributes().put(USER_ROLE_ATTR, role);
+        return chain.filter(exchange.mutate().request(forwarded.build()).build());
+    }
+    
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,72 @@
+package com.phonecase.gateway.filter;
+
+import com.phonecase.gateway.ratelimit.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+// Runs after JwtAuthenticationFilter so authenticated callers are limited per user and anonymous
+// ones per client IP. Rejections are answered with 429 and a Retry-After hint.
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+    
+    public static final int ORDER = JwtAuthenticationFilter.ORDER + 10;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!rateLimiter.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        
+        long waitNanos = rateLimiter.tryAcquireToken(routeId, clientKey(exchange));
+        if (waitNanos > 0) {
+            return tooManyRequests(exchange, RateLimiter.toRetryAfterSeconds(waitNanos), "Rate limit exceeded");
+        }
+        
+        if (!rateLimiter.tryAcquireSlot(routeId)) {
+            return tooManyRequests(exchange, 1, "Too many concurrent requests, please retry");
+        }
+        return chain.filter(exchange).doFinally(signal -> rateLimiter.releaseSlot(routeId));
+    }
+    
+    private String clientKey(ServerWebExchange exchange) {
+        String email = exchange.getAttribute(JwtAuthenticationFilter.USER_EMAIL_ATTR);
+        if (email != null) {
+            return "user:" + email;
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        if (remote == null) {
+            return "ip:unknown";
+        }
+        return "ip:" + (remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString());
+    }
+    
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange, long retryAfterSeconds, String message) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return errorResponseWriter.write(exchange, HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_REQUESTS", message);
+    }
+    
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
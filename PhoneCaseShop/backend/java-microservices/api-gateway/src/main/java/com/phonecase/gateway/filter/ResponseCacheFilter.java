@@ -0,0 +1,213 @@
+package com.phonecase.gateway.filter;
+
+import com.phonecase.gateway.cache.CachedResponse;
+import com.phonecase.gateway.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+// Serves the public product catalog from the gateway cache. Misses are proxied as usual and the
+// upstream body is captured just before NettyWriteResponseFilter writes it to the client.
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+    
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    
+    public static final String CACHE_HEADER = "X-Cache";
+    
+    // Successful writes under this prefix change the catalog, so the cache is dropped
+    private static final String ADMIN_PRODUCTS_PREFIX = "/api/admin/products";
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!responseCache.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            if (isCatalogWrite(request)) {
+                return chain.filter(exchange).doOnSuccess(done -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is2xxSuccessful()) {
+                        responseCache.purge();
+                    }
+                });
+            }
+            return chain.filter(exchange);
+        }
+        
+        Duration ttl = responseCache.ttlFor(request.getPath().pathWithinApplication());
+        if (ttl == null) {
+            return chain.filter(exchange);
+        }
+        
+        String query = request.getURI().getRawQuery();
+        String key = query == null ? request.getPath().value() : request.getPath().value() + '?' + query;
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            return writeCached(exchange, cached);
+        }
+        
+        ServerHttpResponse response = new CachingResponse(exchange, key, ttl, responseCache.generation());
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+    
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.getEtag());
+        headers.set(CACHE_HEADER, "HIT");
+        
+        if (isNotModified(exchange.getRequest(), cached.getEtag())) {
+            responseCache.recordNotModified();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.getContentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, cached.getContentType());
+        }
+        headers.setContentLength(cached.getBody().length);
+        responseCache.recordServed(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+    
+    private static boolean isCatalogWrite(ServerHttpRequest request) {
+        HttpMethod method = request.getMethod();
+        boolean write = HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method);
+        return write && request.getPath().value().startsWith(ADMIN_PRODUCTS_PREFIX);
+    }
+    
+    private static boolean isNotModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Buffers a successful upstream body, stores it, then writes it (or a 304) to the client.
+    // Bodies over max-entry-bytes are never cached, so buffering stops as soon as one crosses the
+    // limit and the rest streams through.
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Duration ttl;
+        private final long generation;
+        
+        CachingResponse(ServerWebExchange exchange, String key, Duration ttl, long generation) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.ttl = ttl;
+            this.generation = generation;
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            int limit = responseCache.getMaxEntryBytes();
+            // Only plain 200 responses are cached, errors, encoded and known-large bodies pass straight through
+            if (!HttpStatus.OK.equals(getStatusCode()) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || headers.getContentLength() > limit) {
+                return super.writeWith(body);
+            }
+            
+            // The first batch is either the whole body (it completed under the limit) or the buffers up
+            // to the one that crossed it; after that every buffer is its own batch
+            long[] size = {0};
+            boolean[] tooLarge = {false};
+            Flux<List<DataBuffer>> batches = Flux.<DataBuffer>from(body).bufferUntil(buffer -> {
+                if (tooLarge[0]) {
+                    return true;
+                }
+                size[0] += buffer.readableByteCount();
+                tooLarge[0] = size[0] > limit;
+                return tooLarge[0];
+            });
+            return batches.switchOnFirst((first, rest) -> {
+                if (tooLarge[0]) {
+                    headers.set(CACHE_HEADER, "MISS");
+                    return super.writeWith(rest.concatMapIterable(buffers -> buffers));
+                }
+                return rest.next()
+                        .map(ResponseCacheFilter::toBytes)
+                        .defaultIfEmpty(EMPTY)
+                        .flatMap(this::storeAndWrite);
+            }).then();
+        }
+        
+        private Mono<Void> storeAndWrite(byte[] bytes) {
+            HttpHeaders headers = getHeaders();
+            MediaType contentType = headers.getContentType();
+            CachedResponse stored = responseCache.put(key, bytes,
+                    contentType != null ? contentType.toString() : null, ttl, generation);
+            
+            headers.setETag(stored.getEtag());
+            headers.set(CACHE_HEADER, "MISS");
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            
+            if (isNotModified(exchange.getRequest(), stored.getEtag())) {
+                responseCache.recordNotModified();
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                return getDelegate().setComplete();
+            }
+            
+            headers.setContentLength(bytes.length);
+            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        }
+    }
+    
+    private static byte[] toBytes(List<DataBuffer> buffers) {
+        int length = 0;
+        for (DataBuffer buffer : buffers) {
+            length += buffer.readableByteCount();
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int count = buffer.readableByteCount();
+            buffer.read(bytes, offset, count);
+            offset += count;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+    
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
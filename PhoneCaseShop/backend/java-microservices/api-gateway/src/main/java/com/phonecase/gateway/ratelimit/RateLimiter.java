@@ -0,0 +1,115 @@
+package com.phonecase.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phonecase.gateway.config.RateLimitProperties;
+import com.phonecase.gateway.config.RateLimitProperties.Limit;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local, per-instance limits: token buckets per (route, client) and in-flight counters per route.
+// Everything lives in memory, so each gateway instance enforces its own share of the limit.
+@Component
+public class RateLimiter {
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    private final Map<String, Limit> resolved = new HashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private Limit defaultLimit;
+    private Cache<String, TokenBucket> buckets;
+    
+    @PostConstruct
+    void init() {
+        defaultLimit = merge(properties.getDefaultLimit(), new Limit(0.0, 1, 0));
+        properties.getRoutes().forEach((routeId, limit) -> resolved.put(routeId, merge(limit, defaultLimit)));
+        
+        buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+    
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+    
+    // Returns 0 if the request may proceed, otherwise the nanos the client should wait
+    public long tryAcquireToken(String routeId, String clientKey) {
+        Limit limit = limitFor(routeId);
+        if (limit.getReplenishRate() <= 0) {
+            return 0;
+        }
+        TokenBucket bucket = buckets.get(routeId + '|' + clientKey,
+                key -> new TokenBucket(limit.getBurstCapacity(), limit.getReplenishRate(), System.nanoTime()));
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos > 0) {
+            recordRejected(routeId, "rate");
+        }
+        return waitNanos;
+    }
+    
+    // Reserves an in-flight slot on the route; callers must release it once the exchange completes
+    public boolean tryAcquireSlot(String routeId) {
+        int max = limitFor(routeId).getMaxConcurrent();
+        if (max <= 0) {
+            return true;
+        }
+        AtomicInteger counter = inFlight.computeIfAbsent(routeId, id -> new AtomicInteger());
+        while (true) {
+            int current = counter.get();
+            if (current >= max) {
+                recordRejected(routeId, "concurrency");
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    public void releaseSlot(String routeId) {
+        AtomicInteger counter = inFlight.get(routeId);
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+    
+    public static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    private Limit limitFor(String routeId) {
+        Limit limit = routeId != null ? resolved.get(routeId) : null;
+        return limit != null ? limit : defaultLimit;
+    }
+    
+    private void recordRejected(String routeId, String reason) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("gateway.ratelimit.rejected",
+                    "route", routeId != null ? routeId : "none", "reason", reason).increment();
+        }
+    }
+    
+    private static Limit merge(Limit limit, Limit fallback) {
+        if (limit == null) {
+            return fallback;
+        }
+        return new Limit(
+                limit.getReplenishRate() != null ? limit.getReplenishRate() : fallback.getReplenishRate(),
+                limit.getBurstCapacity() != null ? limit.getBurstCapacity() : fallback.getBurstCapacity(),
+                limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : fallback.getMaxConcurrent());
+    }
+}
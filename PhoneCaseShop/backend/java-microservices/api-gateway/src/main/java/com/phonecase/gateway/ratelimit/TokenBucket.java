@@ -0,0 +1,33 @@
+package com.phonecase.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+// Classic token bucket refilled lazily from the monotonic clock on each request
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double tokensPerNano;
+    
+    private double tokens;
+    private long lastRefill;
+    
+    public TokenBucket(int capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+    
+    // Takes one token and returns 0, or returns how many nanos until a token will be available
+    public synchronized long tryConsume(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,35 @@
+package com.phonecase.gateway.routing;
+
+import java.util.concurrent.TimeUnit;
+
+// Caps retries to a fraction of the route's traffic so a failing backend is not hit with
+// a multiple of its normal load. Each request earns `ratio` retry tokens, each retry spends one.
+public class RetryBudget {
+    
+    private final double ratio;
+    private final double minPerNano;
+    private final double capacity;
+    
+    private double tokens;
+    private long lastRefill;
+    
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.ratio = ratio;
+        this.minPerNano = (double) minPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(10, minPerSecond * 10);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+    
+    // Deposits this request's share and reports whether a retry could still be afforded
+    public synchronized boolean onRequest() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + ratio + (now - lastRefill) * minPerNano);
+        lastRefill = now;
+        return tokens >= 1;
+    }
+    
+    public synchronized void onRetries(int retries) {
+        tokens -= retries;
+    }
+}
@@ -0,0 +1,104 @@
+package com.phonecase.gateway.routing;
+
+import com.phonecase.gateway.config.GatewayRoutingProperties.ServiceRoute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Longest-prefix routing table built once from the service map. A lookup walks the request path
+// through a character trie a single time, without regexes or per-request allocation.
+public class RouteTable {
+    
+    private final Node root = new Node();
+    
+    public RouteTable(List<ServiceRoute> routes) {
+        for (ServiceRoute route : routes) {
+            String path = trimTrailingSlash(route.getPath());
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.childOrCreate(path.charAt(i));
+            }
+            node.routes.add(route);
+        }
+    }
+    
+    // Returns the most specific route for the request, or null if none applies
+    public ServiceRoute lookup(String method, String path) {
+        ServiceRoute best = null;
+        int end = path.length();
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (!node.routes.isEmpty() && (i == end || path.charAt(i) == '/')) {
+                // Only full segments match, so /api/cart never matches /api/cartoon
+                ServiceRoute candidate = select(node.routes, method, i == end || isTrailingSlash(path, i));
+                if (candidate != null) {
+                    best = candidate;
+                }
+            }
+            if (i == end) {
+                return best;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return best;
+            }
+        }
+    }
+    
+    // Forwarded path: the matched prefix is replaced by the route's target
+    public static String rewrite(ServiceRoute route, String path) {
+        int prefixLength = trimTrailingSlash(route.getPath()).length();
+        return route.getTarget() + path.substring(Math.min(prefixLength, path.length()));
+    }
+    
+    private static ServiceRoute select(List<ServiceRoute> routes, String method, boolean atEnd) {
+        for (int r = 0; r < routes.size(); r++) {
+            ServiceRoute route = routes.get(r);
+            if (route.isExact() && !atEnd) {
+                continue;
+            }
+            if (route.getMethod() != null && !route.getMethod().equalsIgnoreCase(method)) {
+                continue;
+            }
+            return route;
+        }
+        return null;
+    }
+    
+    private static boolean isTrailingSlash(String path, int index) {
+        return index == path.length() - 1 && path.charAt(index) == '/';
+    }
+    
+    private static String trimTrailingSlash(String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+    
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final List<ServiceRoute> routes = new ArrayList<>(1);
+        
+        private Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+        
+        private Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.phonecase.gateway.routing;
+
+import com.phonecase.gateway.config.GatewayRoutingProperties;
+import com.phonecase.gateway.config.GatewayRoutingProperties.ServiceRoute;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.SpringCloudCircuitBreakerFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.addOriginalRequestUrl;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
+// Exposes the service map as gateway routes. The table is consulted once per request and the result
+// is kept on the exchange, so each route's predicate is only an identity check.
+// Every route gets connect/response timeouts; reads additionally get a circuit breaker with a
+// fallback and budgeted retries on connection failures and 502/503.
+@Component
+public class TableRouteLocator implements RouteLocator {
+    
+    private static final String MATCH_ATTR = TableRouteLocator.class.getName() + ".match";
+    // Marker for "looked up, nothing matched", since the attribute map does not accept null
+    private static final Object NO_MATCH = new Object();
+    
+    private static final String FALLBACK_URI = "forward:/fallback";
+    
+    @Autowired
+    private GatewayRoutingProperties properties;
+    
+    @Autowired
+    private SpringCloudCircuitBreakerFilterFactory circuitBreakerFilterFactory;
+    
+    @Autowired
+    private RetryGatewayFilterFactory retryFilterFactory;
+    
+    private RouteTable routeTable;
+    private List<Route> routes;
+    
+    @PostConstruct
+    void init() {
+        routeTable = new RouteTable(properties.getRoutes());
+        routes = new ArrayList<>();
+        int order = 0;
+        for (ServiceRoute serviceRoute : properties.getRoutes()) {
+            Route.AsyncBuilder builder = Route.async()
+                    .id(serviceRoute.getId())
+                    .uri(URI.create("lb://" + serviceRoute.getService()))
+                    .order(order++)
+                    .predicate(exchange -> match(exchange) == serviceRoute)
+                    .metadata(RESPONSE_TIMEOUT_ATTR, properties.responseTimeoutFor(serviceRoute).toMillis())
+                    .metadata(CONNECT_TIMEOUT_ATTR, (int) properties.getConnectTimeout().toMillis())
+                    .filter(new OrderedGatewayFilter(rewriteFilter(serviceRoute), 1));
+            if (serviceRoute.isCircuitBreaker()) {
+                builder.filter(new OrderedGatewayFilter(readsOnly(circuitBreakerFilter(serviceRoute)), 2));
+            }
+            if (properties.retriesFor(serviceRoute) > 0) {
+                builder.filter(new OrderedGatewayFilter(retryFilter(serviceRoute), 3));
+            }
+            routes.add(builder.build());
+        }
+    }
+    
+    @Override
+    public Flux<Route> getRoutes() {
+        return Flux.fromIterable(routes);
+    }
+    
+    private Object match(ServerWebExchange exchange) {
+        Object match = exchange.getAttribute(MATCH_ATTR);
+        if (match == null) {
+            ServerHttpRequest request = exchange.getRequest();
+            ServiceRoute route = routeTable.lookup(request.getMethod().name(), request.getURI().getRawPath());
+            match = route != null ? route : NO_MATCH;
+            exchange.getAttributes().put(MATCH_ATTR, match);
+        }
+        return match;
+    }
+    
+    private GatewayFilter circuitBreakerFilter(ServiceRoute serviceRoute) {
+        // 502-504 from the backend count as failures and are answered by the fallback
+        return circuitBreakerFilterFactory.apply(new SpringCloudCircuitBreakerFilterFactory.Config()
+                .setName(serviceRoute.getId())
+                .setFallbackUri(FALLBACK_URI)
+                .setStatusCodes(Set.of("502", "503", "504")));
+    }
+    
+    // Only idempotent GETs are retried, and only on connection failures or 502/503. Timeouts are not
+    // retried so a stalled backend costs one timeout, not several.
+    private GatewayFilter retryFilter(ServiceRoute serviceRoute) {
+        GatewayFilter retry = retryFilterFactory.apply(new RetryGatewayFilterFactory.RetryConfig()
+                .setRetries(properties.retriesFor(serviceRoute))
+                .setMethods(HttpMethod.GET)
+                .setSeries()
+                .setStatuses(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE)
+                .setExceptions(IOException.class));
+        RetryBudget budget = new RetryBudget(properties.getRetryBudgetRatio(), properties.getRetryBudgetMinPerSecond());
+        return (exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || !budget.onRequest()) {
+                return chain.filter(exchange);
+            }
+            return retry.filter(exchange, chain).doFinally(signal -> {
+                Integer retries = exchange.getAttribute(RetryGatewayFilterFactory.RETRY_ITERATION_KEY);
+                if (retries != null && retries > 0) {
+                    budget.onRetries(retries);
+                }
+            });
+        };
+    }
+    
+    private static GatewayFilter readsOnly(GatewayFilter filter) {
+        return (exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+                return filter.filter(exchange, chain);
+            }
+            return chain.filter(exchange);
+        };
+    }
+    
+    private static GatewayFilter rewriteFilter(ServiceRoute serviceRoute) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            addOriginalRequestUrl(exchange, request.getURI());
+            String newPath = RouteTable.rewrite(serviceRoute, request.getURI().getRawPath());
+            ServerHttpRequest rewritten = request.mutate().path(newPath).build();
+            exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, rewritten.getURI());
+            return chain.filter(exchange.mutate().request(rewritten).build());
+        };
+    }
+}
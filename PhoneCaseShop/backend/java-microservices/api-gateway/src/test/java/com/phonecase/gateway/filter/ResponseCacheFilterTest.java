@@ -0,0 +1,101 @@
+package com.phonecase.gateway.filter;
+
+import com.phonecase.gateway.cache.ResponseCache;
+import com.phonecase.gateway.config.ResponseCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+    
+    private static final int MAX_ENTRY_BYTES = 1024;
+    private static final String PATH = "/api/products/1";
+    
+    private ResponseCache responseCache;
+    private ResponseCacheFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setMaxEntryBytes(MAX_ENTRY_BYTES);
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setPath("/api/products/**");
+        properties.getRoutes().add(route);
+        
+        responseCache = new ResponseCache();
+        ReflectionTestUtils.setField(responseCache, "properties", properties);
+        ReflectionTestUtils.invokeMethod(responseCache, "init");
+        filter = new ResponseCacheFilter();
+        ReflectionTestUtils.setField(filter, "responseCache", responseCache);
+    }
+    
+    @Test
+    void cachesSmallBodies() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(exchange, upstream(4, 100, new AtomicInteger(), null)).block();
+        
+        assertThat(exchange.getResponse().getBodyAsString().block()).hasSize(400);
+        assertThat(exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(responseCache.get(PATH)).isNotNull();
+    }
+    
+    @Test
+    void streamsLargeBodiesOnceTheyCrossTheLimit() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        AtomicInteger emitted = new AtomicInteger();
+        AtomicInteger emittedAtFirstWrite = new AtomicInteger(-1);
+        AtomicLong written = new AtomicLong();
+        exchange.getResponse().setWriteHandler(body -> Flux.from(body)
+                .doOnNext(buffer -> {
+                    emittedAtFirstWrite.compareAndSet(-1, emitted.get());
+                    written.addAndGet(buffer.readableByteCount());
+                })
+                .then());
+        
+        filter.filter(exchange, upstream(10, 400, emitted, null)).block();
+        
+        // 3 x 400 bytes cross the 1024-byte limit, the client gets data before the other 7 are read
+        assertThat(emittedAtFirstWrite.get()).isEqualTo(3);
+        assertThat(written.get()).isEqualTo(4000);
+        assertThat(responseCache.get(PATH)).isNull();
+    }
+    
+    @Test
+    void purgeDuringAMissIsNotUndone() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(exchange, upstream(1, 100, new AtomicInteger(), responseCache::purge)).block();
+        
+        assertThat(exchange.getResponse().getBodyAsString().block()).hasSize(100);
+        assertThat(responseCache.get(PATH)).isNull();
+    }
+    
+    // Writes chunks of the given size as an upstream service would, running beforeWrite first
+    private static GatewayFilterChain upstream(int chunks, int chunkSize, AtomicInteger emitted, Runnable beforeWrite) {
+        return exchange -> {
+            if (beforeWrite != null) {
+                beforeWrite.run();
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            Flux<DataBuffer> body = Flux.range(0, chunks).map(i -> {
+                emitted.incrementAndGet();
+                byte[] chunk = new byte[chunkSize];
+                Arrays.fill(chunk, (byte) 'a');
+                return DefaultDataBufferFactory.sharedInstance.wrap(chunk);
+            });
+            return exchange.getResponse().writeWith(body);
+        };
+    }
+}
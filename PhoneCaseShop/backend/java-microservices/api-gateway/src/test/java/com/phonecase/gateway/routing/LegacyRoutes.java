@@ -0,0 +1,88 @@
+package com.phonecase.gateway.routing;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// The Path/Method predicates and RewritePath filters the gateway used before TableRouteLocator,
+// evaluated the way Spring Cloud Gateway does: routes in declaration order, the request path parsed
+// once, each Path pattern matched against it and the first match rewritten with its regex.
+// Baseline for RouteTableTest and RouteTableBenchmark.
+final class LegacyRoutes {
+    
+    private final List<LegacyRoute> routes = new ArrayList<>();
+    
+    // The deprecated trailing-separator option is what the gateway's Path predicate used, so it stays
+    @SuppressWarnings("deprecation")
+    LegacyRoutes(List<RouteDefinition> definitions) {
+        PathPatternParser parser = new PathPatternParser();
+        // Gateway default (matchTrailingSlash: true)
+        parser.setMatchOptionalTrailingSeparator(true);
+        for (RouteDefinition definition : definitions) {
+            LegacyRoute route = new LegacyRoute();
+            route.service = definition.getUri().getHost();
+            for (PredicateDefinition predicate : definition.getPredicates()) {
+                String value = predicate.getArgs().values().iterator().next();
+                if ("Path".equals(predicate.getName())) {
+                    route.pattern = parser.parse(value);
+                } else if ("Method".equals(predicate.getName())) {
+                    route.method = value;
+                }
+            }
+            for (FilterDefinition filter : definition.getFilters()) {
+                if ("RewritePath".equals(filter.getName())) {
+                    List<String> args = new ArrayList<>(filter.getArgs().values());
+                    route.regex = Pattern.compile(args.get(0));
+                    route.replacement = args.get(1).replace("$\\", "$");
+                }
+            }
+            routes.add(route);
+        }
+    }
+    
+    static LegacyRoutes load() {
+        try {
+            StandardEnvironment environment = new StandardEnvironment();
+            new YamlPropertySourceLoader().load("legacy", new ClassPathResource("legacy-gateway-routes.yml"))
+                    .forEach(environment.getPropertySources()::addFirst);
+            return new LegacyRoutes(Binder.get(environment)
+                    .bind("spring.cloud.gateway.routes", Bindable.listOf(RouteDefinition.class))
+                    .get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Returns "<service> <forwarded path>", or null if no route matches
+    String route(String method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (LegacyRoute route : routes) {
+            if (route.pattern.matches(container) && (route.method == null || route.method.equalsIgnoreCase(method))) {
+                return route.service + " " + route.regex.matcher(path).replaceAll(route.replacement);
+            }
+        }
+        return null;
+    }
+    
+    private static final class LegacyRoute {
+        private String service;
+        private PathPattern pattern;
+        private String method;
+        private Pattern regex;
+        private String replacement;
+    }
+}
@@ -0,0 +1,69 @@
+package com.phonecase.gateway.routing;
+
+import com.phonecase.gateway.config.GatewayRoutingProperties;
+import com.phonecase.gateway.config.GatewayRoutingProperties.ServiceRoute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+// Routing cost of one request: finding the route and building the forwarded path. The old YAML
+// route list (Path patterns in order, RewritePath regex) against the RouteTable built from the
+// service map in application.yml. Run with -prof gc to compare allocation per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteTableBenchmark {
+    
+    @Param({"/api/products/123", "/api/orders", "/api/cart/items/3", "/api/admin/orders/5/status"})
+    public String path;
+    
+    private LegacyRoutes legacy;
+    private RouteTable table;
+    
+    @Setup
+    public void setUp() {
+        legacy = LegacyRoutes.load();
+        table = new RouteTable(currentProperties().getRoutes());
+    }
+    
+    @Benchmark
+    public String yamlRoutes() {
+        return legacy.route("GET", path);
+    }
+    
+    @Benchmark
+    public String routeTable() {
+        ServiceRoute route = table.lookup("GET", path);
+        return RouteTable.rewrite(route, path);
+    }
+    
+    static GatewayRoutingProperties currentProperties() {
+        try {
+            StandardEnvironment environment = new StandardEnvironment();
+            new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))
+                    .forEach(environment.getPropertySources()::addFirst);
+            return Binder.get(environment).bind("gateway.routing", GatewayRoutingProperties.class).get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
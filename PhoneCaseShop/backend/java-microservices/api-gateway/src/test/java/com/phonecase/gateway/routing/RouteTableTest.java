@@ -0,0 +1,76 @@
+package com.phonecase.gateway.routing;
+
+import com.phonecase.gateway.config.GatewayRoutingProperties;
+import com.phonecase.gateway.config.GatewayRoutingProperties.ServiceRoute;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTableTest {
+    
+    // Paths the old route list forwarded correctly; RouteTable must send them to the same place
+    private static final String[][] REQUESTS = {
+            {"POST", "/login"}, {"POST", "/register"}, {"POST", "/api/auth/refresh"},
+            {"GET", "/api/users"}, {"GET", "/api/users/42"}, {"PUT", "/api/users/42/password"},
+            {"GET", "/api/products/123"}, {"GET", "/api/products/all"}, {"GET", "/api/products/search"},
+            {"GET", "/api/designs"}, {"POST", "/api/designs/7/render"},
+            {"GET", "/api/cart"}, {"DELETE", "/api/cart/items/3"},
+            {"GET", "/api/orders"}, {"GET", "/api/orders/"}, {"GET", "/api/orders/5/items"},
+            {"POST", "/api/payments"}, {"GET", "/api/payments/order/5"},
+            {"GET", "/api/inventory/product/9"},
+            {"GET", "/api/statistics"}, {"GET", "/api/statistics/revenue"},
+            {"POST", "/api/admin/login"}, {"GET", "/api/admin/check-auth"},
+            {"GET", "/api/admin/users"}, {"PUT", "/api/admin/users/3/role"},
+            {"GET", "/api/admin/products"}, {"DELETE", "/api/admin/products/8"},
+            {"GET", "/api/admin/inventory"}, {"GET", "/api/admin/inventory/low-stock/stream"},
+            {"GET", "/api/admin/orders"}, {"PUT", "/api/admin/orders/5/status"}
+    };
+    
+    private final GatewayRoutingProperties properties = RouteTableBenchmark.currentProperties();
+    private final RouteTable table = new RouteTable(properties.getRoutes());
+    private final LegacyRoutes legacy = LegacyRoutes.load();
+    
+    @Test
+    void routesLikeTheOldRouteList() {
+        for (String[] request : REQUESTS) {
+            assertThat(route(request[0], request[1]))
+                    .as("%s %s", request[0], request[1])
+                    .isNotNull()
+                    .isEqualTo(legacy.route(request[0], request[1]));
+        }
+    }
+    
+    @Test
+    void matchesWholeSegmentsOnly() {
+        assertThat(table.lookup("GET", "/api/cartoon")).isNull();
+        assertThat(table.lookup("GET", "/api/admin/usersettings")).isNull();
+        assertThat(table.lookup("GET", "/login")).isNull();
+        assertThat(table.lookup("POST", "/login/extra")).isNull();
+    }
+    
+    @Test
+    void longestPrefixWins() {
+        assertThat(table.lookup("GET", "/api/admin/inventory/low-stock/stream").getId())
+                .isEqualTo("admin-inventory-low-stock-stream");
+        assertThat(table.lookup("GET", "/api/admin/inventory/low-stock").getId()).isEqualTo("admin-inventory");
+        assertThat(table.lookup("GET", "/api/admin/orders/5").getId()).isEqualTo("admin-orders");
+    }
+    
+    @Test
+    void streamedListsSkipTheCircuitBreaker() {
+        for (String path : new String[] {"/api/products/all", "/api/admin/users", "/api/admin/inventory", "/api/admin/orders"}) {
+            ServiceRoute route = table.lookup("GET", path);
+            assertThat(route.getId()).as(path).endsWith("-stream");
+            assertThat(route.isCircuitBreaker()).as(path).isFalse();
+            assertThat(properties.retriesFor(route)).as(path).isZero();
+        }
+        assertThat(table.lookup("POST", "/api/admin/users").getId()).isEqualTo("admin-users");
+        assertThat(table.lookup("GET", "/api/admin/orders/5").getId()).isEqualTo("admin-orders");
+        assertThat(table.lookup("GET", "/api/products/all/extra").getId()).isEqualTo("product-service");
+    }
+    
+    private String route(String method, String path) {
+        ServiceRoute route = table.lookup(method, path);
+        return route == null ? null : route.getService() + " " + RouteTable.rewrite(route, path);
+    }
+}
@@ -25,6 +25,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/login", "/register", "/auth/**", "/admin/login", "/admin/check-auth").permitAll()
+                // Only the health check is public, metrics need a signed-in caller
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 .anyRequest().authenticated()
             );
         return http.build();
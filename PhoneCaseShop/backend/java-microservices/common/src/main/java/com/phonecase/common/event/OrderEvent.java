@@ -0,0 +1,42 @@
+package com.phonecase.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Order change published by order-service through its outbox. eventId is the outbox row id and is
+// unique per receiving service, so receivers use it to ignore redeliveries.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+    public static final String ORDER_CREATED = "OrderCreated";
+    public static final String ORDER_SHIPPED = "OrderShipped";
+    public static final String ORDER_CANCELLED = "OrderCancelled";
+    // Delivered without having been marked shipped first
+    public static final String ORDER_DELIVERED = "OrderDelivered";
+    public static final String ORDER_RETURNED = "OrderReturned";
+    
+    private Long eventId;
+    private String type;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private List<Item> items;
+    private LocalDateTime occurredAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long productId;
+        private Long designId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,20 @@
+package com.phonecase.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventResult {
+    public static final String PROCESSED = "PROCESSED";
+    // Already handled by an earlier delivery
+    public static final String DUPLICATE = "DUPLICATE";
+    // Handled, but the receiver refused it for a business reason; it will not be redelivered
+    public static final String REJECTED = "REJECTED";
+    
+    private Long eventId;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,35 @@
+package com.phonecase.common.event;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Records which order events a service has handled, keyed by (consumer, event id). Claiming an event
+// inside the transaction that applies it makes redelivered events no-ops.
+@Component
+public class ProcessedEventLog {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_order_events (consumer, event_id, outcome, message) VALUES (?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Returns false if the consumer has already handled this event
+    public boolean claim(String consumer, long eventId) {
+        return record(consumer, eventId, OrderEventResult.PROCESSED, null);
+    }
+    
+    public boolean record(String consumer, long eventId, String outcome, String message) {
+        if (message != null && message.length() > 500) {
+            message = message.substring(0, 500);
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, consumer, eventId, outcome, message);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
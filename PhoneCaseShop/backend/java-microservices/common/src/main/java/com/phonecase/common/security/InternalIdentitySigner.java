@@ -0,0 +1,84 @@
+package com.phonecase.common.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Signs and verifies the identity headers the API Gateway forwards after it has verified a JWT,
+// so downstream services can trust the caller without re-verifying the token.
+@Component
+public class InternalIdentitySigner {
+
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String EXPIRES_HEADER = "X-Auth-Expires";
+    public static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    // Role carried by service-to-service calls, never issued to users
+    public static final String SYSTEM_ROLE = "SYSTEM";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // Domain separation so a header signature can never be confused with a JWT signature
+    private static final String CONTEXT = "phonecase-internal-identity";
+
+    @Value("${jwt.internal-secret:${jwt.secret:PhoneCaseShopSecretKeyForJWTTokenGeneration2024}}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    // Mac is not thread-safe, keep one initialized instance per thread
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String sign(String email, String role, long expiresAtMillis) {
+        Mac mac = macs.get();
+        byte[] signature = mac.doFinal(payload(email, role, expiresAtMillis));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    // Returns the identity if the headers carry a valid, unexpired signature, otherwise null
+    public JwtClaims verify(String email, String role, String expires, String signature) {
+        if (email == null || role == null || expires == null || signature == null) {
+            return null;
+        }
+        long expiresAtMillis;
+        try {
+            expiresAtMillis = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAtMillis < System.currentTimeMillis()) {
+            return null;
+        }
+        byte[] expected = sign(email, role, expiresAtMillis).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        return new JwtClaims(email, role, new java.util.Date(expiresAtMillis));
+    }
+
+    private byte[] payload(String email, String role, long expiresAtMillis) {
+        return (CONTEXT + '\n' + email + '\n' + role + '\n' + expiresAtMillis).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.phonecase.common.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Date;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class JwtClaims {
+    private final String email;
+    private final String role;
+    private final Date expiration;
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -14,9 +14,19 @@ import java.io.IOException;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
     
+    private static final PublicEndpointMatcher PUBLIC_ENDPOINTS = PublicEndpointMatcher.serviceDefaults();
+    
+    private static final String ACTUATOR = "/actuator";
+    
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+    
+    @Autowired
+    private InternalIdentitySigner internalIdentitySigner;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
@@ -25,38 +35,22 @@ public class JwtFilter extends OncePerRequestFilter {
         
         // Skip JWT validation for public endpoints
         // Note: Paths may come from API Gateway (with /api prefix stripped) or directly
-        // Normalize path by removing query string and trailing slashes
-        String normalizedPath = path.split("\\?")[0].replaceAll("/+$", "");
-        
-        // Public endpoints that don't require authentication
-        boolean isPublicEndpoint = 
-            // Auth endpoints
-            normalizedPath.startsWith("/login") || 
-            normalizedPath.startsWith("/register") || 
-            normalizedPath.startsWith("/auth/") ||
-            normalizedPath.equals("/admin/login") ||
-            normalizedPath.equals("/admin/check-auth") || 
-            // Product public endpoints - GET requests to view products (not admin endpoints)
-            // Note: API Gateway rewrites /api/products/{path} to /products/{path}
-            (method.equals("GET") && (
-                normalizedPath.equals("/products") ||
-                (normalizedPath.startsWith("/products/") && !normalizedPath.contains("/admin")) ||
-                // After API Gateway rewrite: /products/all, /products/search, /products/{id}
-                normalizedPath.equals("/products/all") ||
-                normalizedPath.startsWith("/products/all/") ||
-                normalizedPath.startsWith("/products/search") ||
-                // Numeric ID pattern after /products/ (e.g., /products/1, /products/2)
-                normalizedPath.matches("/products/\\d+")
-            )) ||
-            (method.equals("GET") && (
-                normalizedPath.equals("/api/products") ||
-                normalizedPath.startsWith("/api/products/") && !normalizedPath.contains("/admin")
-            )) ||
-            // Health check and actuator endpoints
-            normalizedPath.startsWith("/actuator") || 
-            normalizedPath.equals("/health");
+        if (PUBLIC_ENDPOINTS.isPublic(method, path)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
         
-        if (isPublicEndpoint) {
+        // Fast path: the API Gateway already verified the token and forwarded a signed identity
+        JwtClaims forwarded = internalIdentitySigner.verify(
+            request.getHeader(InternalIdentitySigner.USER_EMAIL_HEADER),
+            request.getHeader(InternalIdentitySigner.USER_ROLE_HEADER),
+            request.getHeader(InternalIdentitySigner.EXPIRES_HEADER),
+            request.getHeader(InternalIdentitySigner.SIGNATURE_HEADER)
+        );
+        if (forwarded != null) {
+            requireActuatorAccess(path, forwarded.getRole());
+            request.setAttribute("userEmail", forwarded.getEmail());
+            request.setAttribute("userRole", forwarded.getRole());
             filterChain.doFilter(request, response);
             return;
         }
@@ -69,22 +63,32 @@ public class JwtFilter extends OncePerRequestFilter {
         
         String token = authHeader.substring(7);
         
+        JwtClaims claims;
         try {
-            if (jwtUtil.isTokenExpired(token)) {
-                throw new UnauthorizedException("Token has expired");
-            }
-            
-            String email = jwtUtil.getEmailFromToken(token);
-            // You can add user to request attributes here if needed
-            request.setAttribute("userEmail", email);
-            request.setAttribute("userRole", jwtUtil.getRoleFromToken(token));
-            
+            // Verify the signature once per token and read every claim from the same result
+            claims = jwtTokenCache.get(token, jwtUtil::parseToken);
         } catch (Exception e) {
             throw new UnauthorizedException("Invalid token: " + e.getMessage());
         }
         
+        if (claims.isExpired()) {
+            throw new UnauthorizedException("Token has expired");
+        }
+        
+        requireActuatorAccess(path, claims.getRole());
+        request.setAttribute("userEmail", claims.getEmail());
+        request.setAttribute("userRole", claims.getRole());
+        
         filterChain.doFilter(request, response);
     }
+    
+    // Health is public; metrics and the other actuator endpoints are for admins and other services,
+    // the same rule the gateway's ActuatorAccessFilter applies to its own
+    private static void requireActuatorAccess(String path, String role) {
+        if (path.startsWith(ACTUATOR) && !"ADMIN".equals(role) && !InternalIdentitySigner.SYSTEM_ROLE.equals(role)) {
+            throw new UnauthorizedException("Admin access required");
+        }
+    }
 }
 
 
@@ -0,0 +1,94 @@
+package com.phonecase.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+public class JwtTokenCache {
+
+    // Used when a token carries no exp claim
+    private static final long DEFAULT_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, JwtClaims> cache;
+
+    @PostConstruct
+    void init() {
+        // Each entry lives until the token's own exp claim, so an expired token is never served from cache
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return DEFAULT_TTL_NANOS;
+                        }
+                        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            // Publishes cache.gets{result=hit|miss}, cache.evictions and cache.size under cache=jwt.tokens
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+        }
+    }
+
+    // Return the cached claims for this token, or verify it with the given function and cache the result.
+    // Verification failures are not cached and propagate to the caller.
+    public JwtClaims get(String token, Function<String, JwtClaims> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        return cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // Key by digest so raw bearer tokens are not kept in memory
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
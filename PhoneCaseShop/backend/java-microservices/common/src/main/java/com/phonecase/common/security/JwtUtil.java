@@ -1,8 +1,10 @@
 package com.phonecase.common.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -20,8 +22,20 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 hours
     private Long expiration;
     
+    // Key and parser are immutable and thread-safe, so build them once instead of per call
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
     
     public String generateToken(String email, String role) {
@@ -54,12 +68,15 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
+    // Verify the signature once and return every claim the services need.
+    // Throws JwtException if the token is malformed, tampered with or expired.
+    public JwtClaims parseToken(String token) {
+        Claims claims = getAllClaimsFromToken(token);
+        return new JwtClaims(claims.getSubject(), claims.get("role", String.class), claims.getExpiration());
+    }
+    
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public Boolean isTokenExpired(String token) {
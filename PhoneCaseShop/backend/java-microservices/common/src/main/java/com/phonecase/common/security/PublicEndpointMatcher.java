@@ -0,0 +1,164 @@
+package com.phonecase.common.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Classifies requests as public (no token required) with a character trie built once at startup.
+// Matching walks the path a single time and does not allocate or compile regexes per request.
+public class PublicEndpointMatcher {
+
+    private static final String ADMIN_SEGMENT = "/admin";
+
+    private final Node root = new Node();
+
+    public PublicEndpointMatcher(List<Rule> rules) {
+        for (Rule rule : rules) {
+            Node node = root;
+            for (int i = 0; i < rule.path.length(); i++) {
+                node = node.childOrCreate(rule.path.charAt(i));
+            }
+            if (rule.prefix) {
+                node.prefixRules.add(rule);
+            } else {
+                node.exactRules.add(rule);
+            }
+        }
+    }
+
+    // Public endpoints as seen by the services. Paths may come from the API Gateway
+    // (with /api stripped) or directly, so both forms of the product routes are listed.
+    public static PublicEndpointMatcher serviceDefaults() {
+        return new PublicEndpointMatcher(List.of(
+            // Auth endpoints
+            Rule.prefix("/login"),
+            Rule.prefix("/register"),
+            Rule.prefix("/auth/"),
+            Rule.exact("/admin/login"),
+            Rule.exact("/admin/check-auth"),
+            // Product public endpoints - GET requests to view products (not admin endpoints)
+            Rule.getExact("/products"),
+            Rule.getPrefixExcludingAdmin("/products/"),
+            Rule.getPrefix("/products/all/"),
+            Rule.getPrefix("/products/search"),
+            Rule.getExact("/api/products"),
+            Rule.getPrefixExcludingAdmin("/api/products/"),
+            // Health checks; JwtFilter admits only ADMIN and SYSTEM to the other actuator endpoints
+            Rule.exact("/actuator/health"),
+            Rule.prefix("/actuator/health/"),
+            Rule.exact("/health")
+        ));
+    }
+
+    public boolean isPublic(String method, String path) {
+        if (path == null) {
+            return false;
+        }
+        // Normalize by ignoring the query string and trailing slashes, without building a new string
+        int end = path.indexOf('?');
+        if (end < 0) {
+            end = path.length();
+        }
+        while (end > 0 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        boolean isGet = "GET".equals(method);
+        int adminIndex = -2; // computed lazily, -2 means not looked up yet
+
+        Node node = root;
+        for (int i = 0; ; i++) {
+            for (int r = 0; r < node.prefixRules.size(); r++) {
+                Rule rule = node.prefixRules.get(r);
+                if (rule.getOnly && !isGet) {
+                    continue;
+                }
+                if (rule.excludeAdmin) {
+                    if (adminIndex == -2) {
+                        adminIndex = path.indexOf(ADMIN_SEGMENT);
+                    }
+                    if (adminIndex >= 0 && adminIndex + ADMIN_SEGMENT.length() <= end) {
+                        continue;
+                    }
+                }
+                return true;
+            }
+            if (i == end) {
+                for (int r = 0; r < node.exactRules.size(); r++) {
+                    if (!node.exactRules.get(r).getOnly || isGet) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    public static final class Rule {
+        private final String path;
+        private final boolean prefix;
+        private final boolean getOnly;
+        private final boolean excludeAdmin;
+
+        private Rule(String path, boolean prefix, boolean getOnly, boolean excludeAdmin) {
+            this.path = path;
+            this.prefix = prefix;
+            this.getOnly = getOnly;
+            this.excludeAdmin = excludeAdmin;
+        }
+
+        public static Rule exact(String path) {
+            return new Rule(path, false, false, false);
+        }
+
+        public static Rule prefix(String path) {
+            return new Rule(path, true, false, false);
+        }
+
+        public static Rule getExact(String path) {
+            return new Rule(path, false, true, false);
+        }
+
+        public static Rule getPrefix(String path) {
+            return new Rule(path, true, true, false);
+        }
+
+        // GET-only prefix that does not apply when the path contains /admin
+        public static Rule getPrefixExcludingAdmin(String path) {
+            return new Rule(path, true, true, true);
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final List<Rule> prefixRules = new ArrayList<>(1);
+        private final List<Rule> exactRules = new ArrayList<>(1);
+
+        private Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
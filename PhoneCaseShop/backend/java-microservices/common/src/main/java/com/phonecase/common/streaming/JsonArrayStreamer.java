@@ -0,0 +1,101 @@
+package com.phonecase.common.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Streams a query result as a JSON array, row by row from the database cursor, so list endpoints
+// keep the same wire format without building the whole List in memory first.
+@Component
+public class JsonArrayStreamer {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${streaming.fetch-size:500}")
+    private int fetchSize;
+    
+    private ObjectWriter rowWriter;
+    
+    @PostConstruct
+    void init() {
+        // Same serialization settings as the regular JSON responses, but flushing is left to the batches
+        rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+    
+    // Rows are written as soon as they are mapped, the output is flushed once per fetch
+    public <T> StreamingResponseBody stream(String sql, RowMapper<T> rowMapper, Object... args) {
+        return streamInBatches(sql, rowMapper, fetchSize, batch -> batch, args);
+    }
+    
+    // Rows are collected into batches of batchSize and passed through the converter before being
+    // written, for results that need extra data loaded per batch (e.g. child rows)
+    public <T, R> StreamingResponseBody streamInBatches(String sql, RowMapper<T> rowMapper, int batchSize,
+                                                        Function<List<T>, List<R>> converter, Object... args) {
+        return out -> write(out, sql, rowMapper, batchSize, converter, args);
+    }
+    
+    private <T, R> void write(OutputStream out, String sql, RowMapper<T> rowMapper, int batchSize,
+                              Function<List<T>, List<R>> converter, Object[] args) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartArray();
+        
+        List<T> batch = new ArrayList<>(batchSize);
+        int[] rowNum = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setFetchSize(fetchSize);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                batch.add(rowMapper.mapRow(rs, rowNum[0]++));
+                if (batch.size() >= batchSize) {
+                    writeBatch(generator, converter.apply(batch));
+                    batch.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away mid-stream, surface the original IOException
+            throw e.getCause();
+        }
+        
+        if (!batch.isEmpty()) {
+            writeBatch(generator, converter.apply(batch));
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+    
+    private <R> void writeBatch(JsonGenerator generator, List<R> rows) {
+        try {
+            for (R row : rows) {
+                rowWriter.writeValue(generator, row);
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
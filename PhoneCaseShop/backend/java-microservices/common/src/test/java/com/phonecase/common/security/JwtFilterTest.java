@@ -0,0 +1,63 @@
+package com.phonecase.common.security;
+
+import com.phonecase.common.exception.UnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtFilterTest {
+    
+    private final InternalIdentitySigner signer = new InternalIdentitySigner();
+    
+    private final JwtFilter filter = new JwtFilter();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(signer, "secret", "test-secret");
+        ReflectionTestUtils.invokeMethod(signer, "init");
+        ReflectionTestUtils.setField(filter, "internalIdentitySigner", signer);
+    }
+    
+    @Test
+    void customersCannotReadActuatorMetrics() {
+        assertThatThrownBy(() -> filter(request("/actuator/metrics", "CUSTOMER")))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> filter(request("/actuator/metrics/jvm.memory.used", "EMPLOYEE")))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+    
+    @Test
+    void adminsAndServicesReadActuatorMetrics() throws Exception {
+        assertThat(filter(request("/actuator/metrics", "ADMIN"))).isTrue();
+        assertThat(filter(request("/actuator/metrics", InternalIdentitySigner.SYSTEM_ROLE))).isTrue();
+    }
+    
+    @Test
+    void healthStaysPublicAndOtherPathsOnlyNeedAToken() throws Exception {
+        assertThat(filter(new MockHttpServletRequest("GET", "/actuator/health"))).isTrue();
+        assertThat(filter(request("/orders", "CUSTOMER"))).isTrue();
+    }
+    
+    // True when the request reached the rest of the chain
+    private boolean filter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest() != null;
+    }
+    
+    private MockHttpServletRequest request(String path, String role) {
+        long expires = System.currentTimeMillis() + 60_000;
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader(InternalIdentitySigner.USER_EMAIL_HEADER, "user@example.com");
+        request.addHeader(InternalIdentitySigner.USER_ROLE_HEADER, role);
+        request.addHeader(InternalIdentitySigner.EXPIRES_HEADER, String.valueOf(expires));
+        request.addHeader(InternalIdentitySigner.SIGNATURE_HEADER, signer.sign("user@example.com", role, expires));
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.phonecase.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of reading the caller from a JWT: the old JwtFilter path (a new key and parser
+// for each of three parses) against JwtUtil.parseToken with the cached parser.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+    
+    private static final String SECRET = "PhoneCaseShopSecretKeyForJWTTokenGeneration2024";
+    
+    private JwtUtil jwtUtil;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("customer@example.com", "CUSTOMER");
+    }
+    
+    @Benchmark
+    public void perCallParsers(Blackhole blackhole) {
+        blackhole.consume(parseWithNewParser(token).getExpiration().before(new Date()));
+        blackhole.consume(parseWithNewParser(token).getSubject());
+        blackhole.consume(parseWithNewParser(token).get("role", String.class));
+    }
+    
+    @Benchmark
+    public JwtClaims cachedParser() {
+        return jwtUtil.parseToken(token);
+    }
+    
+    // JwtUtil.getAllClaimsFromToken before the key and parser were cached
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
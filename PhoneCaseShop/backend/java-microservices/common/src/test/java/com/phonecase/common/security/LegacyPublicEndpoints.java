@@ -0,0 +1,33 @@
+package com.phonecase.common.security;
+
+// The public-endpoint check JwtFilter ran before PublicEndpointMatcher, kept as the baseline for
+// PublicEndpointMatcherTest and PublicEndpointMatcherBenchmark. Its actuator rule is the old
+// /actuator prefix.
+final class LegacyPublicEndpoints {
+    
+    private LegacyPublicEndpoints() {
+    }
+    
+    static boolean isPublic(String method, String path) {
+        String normalizedPath = path.split("\\?")[0].replaceAll("/+$", "");
+        return normalizedPath.startsWith("/login") ||
+            normalizedPath.startsWith("/register") ||
+            normalizedPath.startsWith("/auth/") ||
+            normalizedPath.equals("/admin/login") ||
+            normalizedPath.equals("/admin/check-auth") ||
+            (method.equals("GET") && (
+                normalizedPath.equals("/products") ||
+                (normalizedPath.startsWith("/products/") && !normalizedPath.contains("/admin")) ||
+                normalizedPath.equals("/products/all") ||
+                normalizedPath.startsWith("/products/all/") ||
+                normalizedPath.startsWith("/products/search") ||
+                normalizedPath.matches("/products/\\d+")
+            )) ||
+            (method.equals("GET") && (
+                normalizedPath.equals("/api/products") ||
+                normalizedPath.startsWith("/api/products/") && !normalizedPath.contains("/admin")
+            )) ||
+            normalizedPath.startsWith("/actuator") ||
+            normalizedPath.equals("/health");
+    }
+}
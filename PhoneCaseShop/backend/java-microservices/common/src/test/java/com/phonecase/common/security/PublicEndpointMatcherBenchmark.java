@@ -0,0 +1,40 @@
+package com.phonecase.common.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of classifying one request as public or not: the old split/replaceAll/matches chain against
+// the trie. Run with -prof gc to compare allocation per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicEndpointMatcherBenchmark {
+    
+    @Param({"/products/12345", "/orders", "/actuator/health", "/products/search?q=iphone"})
+    public String path;
+    
+    private final PublicEndpointMatcher matcher = PublicEndpointMatcher.serviceDefaults();
+    
+    @Benchmark
+    public boolean regexChain() {
+        return LegacyPublicEndpoints.isPublic("GET", path);
+    }
+    
+    @Benchmark
+    public boolean trie() {
+        return matcher.isPublic("GET", path);
+    }
+}
@@ -0,0 +1,45 @@
+package com.phonecase.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicEndpointMatcherTest {
+    
+    private static final List<String> PATHS = List.of(
+            "/login", "/login/", "/register", "/register?ref=x", "/auth/refresh", "/auth",
+            "/admin/login", "/admin/login/", "/admin/check-auth", "/admin/users",
+            "/products", "/products/", "/products/42", "/products/42?x=1", "/products/all", "/products/all/3",
+            "/products/search?q=case", "/products/admin/1", "/products/1/admin", "/productsx",
+            "/api/products", "/api/products/7", "/api/products/admin/7", "/api/productsx",
+            "/orders", "/orders/15", "/cart", "/health", "/healthz", "/", "");
+    
+    private final PublicEndpointMatcher matcher = PublicEndpointMatcher.serviceDefaults();
+    
+    @Test
+    void classifiesLikeTheOldRegexChain() {
+        for (String method : List.of("GET", "POST", "DELETE")) {
+            for (String path : PATHS) {
+                assertThat(matcher.isPublic(method, path))
+                        .as("%s %s", method, path)
+                        .isEqualTo(LegacyPublicEndpoints.isPublic(method, path));
+            }
+        }
+    }
+    
+    @Test
+    void onlyHealthIsPublicUnderActuator() {
+        assertThat(matcher.isPublic("GET", "/actuator/health")).isTrue();
+        assertThat(matcher.isPublic("GET", "/actuator/health/liveness")).isTrue();
+        assertThat(matcher.isPublic("GET", "/actuator/metrics")).isFalse();
+        assertThat(matcher.isPublic("GET", "/actuator/healthx")).isFalse();
+        assertThat(matcher.isPublic("GET", "/actuator")).isFalse();
+    }
+    
+    @Test
+    void nullPathIsNotPublic() {
+        assertThat(matcher.isPublic("GET", null)).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+-- =============================================
+-- Phone Case Shop - Distinct Buyer Benchmark
+-- Times the exact COUNT(DISTINCT user_id) over orders for the dashboard windows against reading the
+-- day sketches statistics-service merges instead (one row per day, dense sketches of 4098 bytes as
+-- the worst case). Merging a year of sketches in statistics-service takes a few milliseconds.
+-- Runs on a 1M-row copy in tempdb, the real tables are not touched.
+-- =============================================
+
+USE PhoneCaseShop;
+GO
+
+SET NOCOUNT ON;
+
+IF OBJECT_ID('tempdb..#orders_bench') IS NOT NULL
+    DROP TABLE #orders_bench;
+IF OBJECT_ID('tempdb..#sketches_bench') IS NOT NULL
+    DROP TABLE #sketches_bench;
+
+CREATE TABLE #orders_bench (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    [user_id] BIGINT NOT NULL,
+    [status] NVARCHAR(50) NOT NULL,
+    [created_at] DATETIME2 NOT NULL
+);
+
+-- 1,000,000 orders from 200,000 customers spread over the last two years
+INSERT INTO #orders_bench ([user_id], [status], [created_at])
+SELECT TOP (1000000)
+    ABS(CHECKSUM(NEWID())) % 200000 + 1,
+    CHOOSE(ABS(CHECKSUM(NEWID())) % 6 + 1, 'PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'RETURNED'),
+    DATEADD(SECOND, -(ABS(CHECKSUM(NEWID())) % (730 * 86400)), GETDATE())
+FROM sys.all_objects a CROSS JOIN sys.all_objects b;
+
+CREATE INDEX IX_orders_bench_created_at ON #orders_bench([created_at]);
+
+-- A year of day sketches
+CREATE TABLE #sketches_bench (
+    [stat_date] DATE NOT NULL PRIMARY KEY,
+    [sketch] VARBINARY(4098) NOT NULL
+);
+
+INSERT INTO #sketches_bench ([stat_date], [sketch])
+SELECT TOP (365) DATEADD(DAY, -ROW_NUMBER() OVER (ORDER BY (SELECT NULL)), CAST(GETDATE() AS DATE)), CRYPT_GEN_RANDOM(4098)
+FROM sys.all_objects;
+GO
+
+DECLARE @end DATETIME2 = CAST(DATEADD(DAY, 1, CAST(GETDATE() AS DATE)) AS DATETIME2);
+DECLARE @t DATETIME2, @start DATETIME2, @days INT, @n BIGINT;
+
+DECLARE windows CURSOR LOCAL FAST_FORWARD FOR
+    SELECT d FROM (VALUES (1), (7), (30), (365), (730)) v(d);
+OPEN windows;
+FETCH NEXT FROM windows INTO @days;
+WHILE @@FETCH_STATUS = 0
+BEGIN
+    SET @start = DATEADD(DAY, -@days, @end);
+    DBCC DROPCLEANBUFFERS WITH NO_INFOMSGS;
+
+    SET @t = SYSDATETIME();
+    SELECT @n = COUNT(DISTINCT user_id) FROM #orders_bench
+    WHERE created_at >= @start AND created_at < @end AND status NOT IN ('CANCELLED', 'RETURNED');
+    PRINT 'Exact, ' + CAST(@days AS NVARCHAR(10)) + ' days: ' + CAST(@n AS NVARCHAR(20)) + ' buyers in '
+        + CAST(DATEDIFF(MILLISECOND, @t, SYSDATETIME()) AS NVARCHAR(20)) + ' ms';
+
+    FETCH NEXT FROM windows INTO @days;
+END
+CLOSE windows;
+DEALLOCATE windows;
+
+DBCC DROPCLEANBUFFERS WITH NO_INFOMSGS;
+
+-- Sketches: the rows of a year, all that statistics-service reads for a 365-day window
+SET @t = SYSDATETIME();
+SELECT @n = SUM(CAST(DATALENGTH(sketch) AS BIGINT)) FROM #sketches_bench
+WHERE stat_date >= DATEADD(DAY, -365, CAST(GETDATE() AS DATE)) AND stat_date < CAST(GETDATE() AS DATE);
+PRINT 'Sketches, 365 days: ' + CAST(@n AS NVARCHAR(20)) + ' bytes in '
+    + CAST(DATEDIFF(MILLISECOND, @t, SYSDATETIME()) AS NVARCHAR(20)) + ' ms';
+GO
+
+DROP TABLE #orders_bench;
+DROP TABLE #sketches_bench;
+GO
@@ -0,0 +1,77 @@
+-- =============================================
+-- Phone Case Shop - Statistics Query Benchmark
+-- Compares the old per-status COUNT queries (CAST(created_at AS DATE) with literal dates) against
+-- the single grouped query with half-open [start, end) parameters used by statistics-service.
+-- Runs on a 1M-row copy in tempdb, the real orders table is not touched.
+-- =============================================
+
+USE PhoneCaseShop;
+GO
+
+SET NOCOUNT ON;
+
+IF OBJECT_ID('tempdb..#orders_bench') IS NOT NULL
+    DROP TABLE #orders_bench;
+
+CREATE TABLE #orders_bench (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    [status] NVARCHAR(50) NOT NULL,
+    [total_amount] DECIMAL(18,2) NOT NULL,
+    [payment_status] NVARCHAR(50) NULL,
+    [created_at] DATETIME2 NOT NULL
+);
+
+-- 1,000,000 orders spread over the last two years
+INSERT INTO #orders_bench ([status], [total_amount], [payment_status], [created_at])
+SELECT TOP (1000000)
+    CHOOSE(ABS(CHECKSUM(NEWID())) % 6 + 1, 'PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'RETURNED'),
+    CAST(ABS(CHECKSUM(NEWID())) % 100000 / 100.0 AS DECIMAL(18,2)),
+    CHOOSE(ABS(CHECKSUM(NEWID())) % 3 + 1, 'PENDING', 'PAID', 'REFUNDED'),
+    DATEADD(SECOND, -(ABS(CHECKSUM(NEWID())) % (730 * 86400)), GETDATE())
+FROM sys.all_objects a CROSS JOIN sys.all_objects b;
+
+CREATE INDEX IX_orders_bench_created_at ON #orders_bench([created_at]);
+GO
+
+DECLARE @start DATETIME2 = CAST(DATEADD(MONTH, -1, CAST(GETDATE() AS DATE)) AS DATETIME2);
+DECLARE @end DATETIME2 = CAST(DATEADD(DAY, 1, CAST(GETDATE() AS DATE)) AS DATETIME2);
+DECLARE @literal NVARCHAR(10) = CONVERT(NVARCHAR(10), @start, 23);
+DECLARE @t DATETIME2, @sql NVARCHAR(MAX), @status NVARCHAR(50), @n BIGINT;
+
+DBCC DROPCLEANBUFFERS WITH NO_INFOMSGS;
+
+-- Old: one query per figure, date literal baked into the text (one plan per day)
+SET @t = SYSDATETIME();
+SET @sql = N'SELECT @n = COUNT(*) FROM #orders_bench WHERE CAST(created_at AS DATE) >= ''' + @literal + N'''';
+EXEC sp_executesql @sql, N'@n BIGINT OUTPUT', @n OUTPUT;
+SET @sql = N'SELECT @n = COALESCE(SUM(total_amount), 0) FROM #orders_bench WHERE payment_status = ''PAID'' AND CAST(created_at AS DATE) >= ''' + @literal + N'''';
+EXEC sp_executesql @sql, N'@n BIGINT OUTPUT', @n OUTPUT;
+DECLARE statuses CURSOR LOCAL FAST_FORWARD FOR
+    SELECT s FROM (VALUES ('PENDING'), ('DELIVERED'), ('CANCELLED'),
+                          ('PENDING'), ('PROCESSING'), ('SHIPPED'), ('DELIVERED'), ('CANCELLED'), ('RETURNED')) v(s);
+OPEN statuses;
+FETCH NEXT FROM statuses INTO @status;
+WHILE @@FETCH_STATUS = 0
+BEGIN
+    SET @sql = N'SELECT @n = COUNT(*) FROM #orders_bench WHERE status = ''' + @status + N''' AND CAST(created_at AS DATE) >= ''' + @literal + N'''';
+    EXEC sp_executesql @sql, N'@n BIGINT OUTPUT', @n OUTPUT;
+    FETCH NEXT FROM statuses INTO @status;
+END
+CLOSE statuses;
+DEALLOCATE statuses;
+PRINT 'Old, 11 queries: ' + CAST(DATEDIFF(MILLISECOND, @t, SYSDATETIME()) AS NVARCHAR(20)) + ' ms';
+
+DBCC DROPCLEANBUFFERS WITH NO_INFOMSGS;
+
+-- New: one grouped query, half-open parameter range
+SET @t = SYSDATETIME();
+EXEC sp_executesql
+    N'SELECT status, COUNT(*) AS orders,
+             COALESCE(SUM(CASE WHEN payment_status = ''PAID'' THEN total_amount END), 0) AS revenue
+      FROM #orders_bench WHERE created_at >= @start AND created_at < @end GROUP BY status',
+    N'@start DATETIME2, @end DATETIME2', @start, @end;
+PRINT 'New, 1 grouped query: ' + CAST(DATEDIFF(MILLISECOND, @t, SYSDATETIME()) AS NVARCHAR(20)) + ' ms';
+GO
+
+DROP TABLE #orders_bench;
+GO
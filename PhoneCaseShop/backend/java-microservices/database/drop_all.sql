@@ -11,6 +11,46 @@ EXEC sp_MSforeachtable "ALTER TABLE ? NOCHECK CONSTRAINT ALL"
 GO
 
 -- Drop all tables
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_number_nodes]') AND type in (N'U'))
+    DROP TABLE [dbo].[order_number_nodes];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[product_buyer_daily_sketches]') AND type in (N'U'))
+    DROP TABLE [dbo].[product_buyer_daily_sketches];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[buyer_daily_sketches]') AND type in (N'U'))
+    DROP TABLE [dbo].[buyer_daily_sketches];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[statistics_watermarks]') AND type in (N'U'))
+    DROP TABLE [dbo].[statistics_watermarks];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[product_daily_stats]') AND type in (N'U'))
+    DROP TABLE [dbo].[product_daily_stats];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_hourly_stats]') AND type in (N'U'))
+    DROP TABLE [dbo].[order_hourly_stats];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_daily_stats]') AND type in (N'U'))
+    DROP TABLE [dbo].[order_daily_stats];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[inventory_reservations]') AND type in (N'U'))
+    DROP TABLE [dbo].[inventory_reservations];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[processed_order_events]') AND type in (N'U'))
+    DROP TABLE [dbo].[processed_order_events];
+GO
+
+IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_outbox]') AND type in (N'U'))
+    DROP TABLE [dbo].[order_outbox];
+GO
+
 IF EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[payments]') AND type in (N'U'))
     DROP TABLE [dbo].[payments];
 GO
@@ -79,6 +79,21 @@ BEGIN
 END
 GO
 
+-- Low-stock flag maintained by SQL Server on every write, so low-stock lookups seek an index
+-- instead of scanning and comparing every row (computed columns cannot be used in filtered indexes)
+IF COL_LENGTH(N'[dbo].[inventory]', N'is_low_stock') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[inventory] ADD [is_low_stock] AS
+        (CAST(CASE WHEN [quantity] - [reserved_quantity] < [reorder_level] THEN 1 ELSE 0 END AS BIT)) PERSISTED;
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_inventory_low_stock' AND object_id = OBJECT_ID(N'[dbo].[inventory]'))
+BEGIN
+    CREATE INDEX IX_inventory_low_stock ON [dbo].[inventory]([is_low_stock], [product_id]);
+END
+GO
+
 -- =============================================
 -- 4. CUSTOM_DESIGNS TABLE
 -- =============================================
@@ -207,6 +222,194 @@ BEGIN
 END
 GO
 
+-- =============================================
+-- 9. ORDER_OUTBOX TABLE
+-- =============================================
+-- Order events written in the same transaction as the order change and relayed by order-service
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_outbox]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[order_outbox] (
+        [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+        [order_id] BIGINT NOT NULL,
+        [event_type] NVARCHAR(50) NOT NULL, -- OrderCreated, OrderShipped, OrderDelivered, OrderCancelled, OrderReturned
+        [destination] NVARCHAR(100) NOT NULL, -- receiving service name in Eureka
+        [payload] NVARCHAR(MAX) NOT NULL,
+        [attempts] INT NOT NULL DEFAULT 0,
+        [locked_until] DATETIME2 NULL, -- UTC lease or retry time
+        [published_at] DATETIME2 NULL,
+        [last_error] NVARCHAR(500) NULL,
+        [created_at] DATETIME2 DEFAULT GETDATE()
+    );
+    
+    CREATE INDEX IX_order_outbox_pending ON [dbo].[order_outbox]([order_id], [destination], [id]) WHERE [published_at] IS NULL;
+END
+GO
+
+-- =============================================
+-- 10. PROCESSED_ORDER_EVENTS TABLE
+-- =============================================
+-- Order events already applied by each receiving service, used to ignore redeliveries
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[processed_order_events]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[processed_order_events] (
+        [consumer] NVARCHAR(50) NOT NULL,
+        [event_id] BIGINT NOT NULL,
+        [outcome] NVARCHAR(20) NOT NULL, -- PROCESSED, REJECTED
+        [message] NVARCHAR(500) NULL,
+        [processed_at] DATETIME2 DEFAULT GETDATE(),
+        PRIMARY KEY ([consumer], [event_id])
+    );
+END
+GO
+
+-- =============================================
+-- 11. INVENTORY_RESERVATIONS TABLE
+-- =============================================
+-- Who holds the reserved_quantity of each product, swept by inventory-service when a hold expires
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[inventory_reservations]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[inventory_reservations] (
+        [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+        [product_id] BIGINT NOT NULL,
+        [quantity] INT NOT NULL,
+        [reference] NVARCHAR(100) NULL, -- e.g. order:<id> or a checkout id
+        [status] NVARCHAR(20) NOT NULL DEFAULT 'ACTIVE', -- ACTIVE, CONSUMED, RELEASED, EXPIRED
+        [created_at] DATETIME2 DEFAULT GETDATE(),
+        [expires_at] DATETIME2 NULL, -- UTC, NULL never expires
+        [closed_at] DATETIME2 NULL
+    );
+    
+    CREATE INDEX IX_inventory_reservations_expiry ON [dbo].[inventory_reservations]([expires_at]) INCLUDE ([product_id], [quantity]) WHERE [status] = 'ACTIVE';
+    CREATE INDEX IX_inventory_reservations_reference ON [dbo].[inventory_reservations]([reference], [product_id], [id]) INCLUDE ([quantity]) WHERE [status] = 'ACTIVE';
+    CREATE INDEX IX_inventory_reservations_anonymous ON [dbo].[inventory_reservations]([product_id], [id]) INCLUDE ([quantity]) WHERE [status] = 'ACTIVE' AND [reference] IS NULL;
+END
+GO
+
+-- =============================================
+-- 12. ORDER_DAILY_STATS TABLE
+-- =============================================
+-- Orders and paid revenue per day and status, kept up to date by statistics-service
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_daily_stats]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[order_daily_stats] (
+        [stat_date] DATE NOT NULL,
+        [status] NVARCHAR(50) NOT NULL,
+        [order_count] INT NOT NULL,
+        [paid_revenue] DECIMAL(18,2) NOT NULL, -- total_amount of the PAID orders
+        PRIMARY KEY ([stat_date], [status])
+    );
+END
+GO
+
+-- How far each rollup has read the source tables
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[statistics_watermarks]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[statistics_watermarks] (
+        [name] NVARCHAR(50) PRIMARY KEY,
+        [watermark] DATETIME2 NOT NULL
+    );
+END
+GO
+
+-- Finds the orders changed since the last rollup refresh
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_orders_updated_at' AND object_id = OBJECT_ID(N'[dbo].[orders]'))
+BEGIN
+    CREATE INDEX IX_orders_updated_at ON [dbo].[orders]([updated_at]) INCLUDE ([created_at]);
+END
+GO
+
+-- When each day was last recomputed, lets statistics-service drop stale days from its cache
+IF COL_LENGTH(N'[dbo].[order_daily_stats]', N'refreshed_at') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[order_daily_stats] ADD [refreshed_at] DATETIME2 NOT NULL DEFAULT GETDATE();
+END
+GO
+
+-- =============================================
+-- 13. ORDER_HOURLY_STATS TABLE
+-- =============================================
+-- Orders and paid revenue per hour, maintained with order_daily_stats for the time-series API
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_hourly_stats]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[order_hourly_stats] (
+        [stat_hour] DATETIME2(0) NOT NULL PRIMARY KEY,
+        [order_count] INT NOT NULL,
+        [paid_revenue] DECIMAL(18,2) NOT NULL
+    );
+END
+GO
+
+-- =============================================
+-- 14. PRODUCT_DAILY_STATS TABLE
+-- =============================================
+-- Units sold and item revenue per day and product (cancelled and returned orders excluded)
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[product_daily_stats]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[product_daily_stats] (
+        [stat_date] DATE NOT NULL,
+        [product_id] BIGINT NOT NULL,
+        [units] INT NOT NULL,
+        [revenue] DECIMAL(18,2) NOT NULL,
+        PRIMARY KEY ([stat_date], [product_id])
+    );
+    
+    -- Makes statistics-service backfill the rollups, including this new one
+    IF OBJECT_ID(N'[dbo].[statistics_watermarks]', N'U') IS NOT NULL
+        DELETE FROM [dbo].[statistics_watermarks] WHERE [name] = 'order_rollups';
+END
+GO
+
+-- =============================================
+-- 15. BUYER SKETCH TABLES
+-- =============================================
+-- HyperLogLog sketch of the distinct buyers per day (cancelled and returned orders excluded).
+-- statistics-service merges the days of a window into its active-buyer count.
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[buyer_daily_sketches]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[buyer_daily_sketches] (
+        [stat_date] DATE NOT NULL PRIMARY KEY,
+        [sketch] VARBINARY(4098) NOT NULL
+    );
+    
+    IF OBJECT_ID(N'[dbo].[statistics_watermarks]', N'U') IS NOT NULL
+        DELETE FROM [dbo].[statistics_watermarks] WHERE [name] = 'order_rollups';
+END
+GO
+
+-- The same per day and product, for unique buyers per product
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[product_buyer_daily_sketches]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[product_buyer_daily_sketches] (
+        [stat_date] DATE NOT NULL,
+        [product_id] BIGINT NOT NULL,
+        [sketch] VARBINARY(4098) NOT NULL,
+        PRIMARY KEY ([stat_date], [product_id])
+    );
+    
+    IF OBJECT_ID(N'[dbo].[statistics_watermarks]', N'U') IS NOT NULL
+        DELETE FROM [dbo].[statistics_watermarks] WHERE [name] = 'order_rollups';
+END
+GO
+
+-- =============================================
+-- 16. ORDER_NUMBER_NODES TABLE
+-- =============================================
+-- Node ids (0-1023) embedded in order numbers. An order-service instance without an explicit
+-- order.number.node-id leases one of these rows and renews the lease while it runs.
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_number_nodes]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[order_number_nodes] (
+        [node_id] INT NOT NULL PRIMARY KEY,
+        [instance_id] NVARCHAR(100) NULL,
+        [lease_expires_at] DATETIME2 NULL -- UTC
+    );
+    
+    INSERT INTO [dbo].[order_number_nodes] ([node_id])
+    SELECT TOP (1024) ROW_NUMBER() OVER (ORDER BY (SELECT NULL)) - 1
+    FROM sys.all_objects a CROSS JOIN sys.all_objects b;
+END
+GO
+
 -- =============================================
 -- TRIGGERS
 -- =============================================
@@ -6,10 +6,12 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.phonecase.inventory", "com.phonecase.common"})
 @EnableDiscoveryClient
 @EnableRetry
+@EnableScheduling
 @EntityScan("com.phonecase.inventory.entity")
 @EnableJpaRepositories("com.phonecase.inventory.repository")
 public class InventoryServiceApplication {
@@ -0,0 +1,29 @@
+package com.phonecase.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties("inventory.reservation.hot")
+public class HotStockProperties {
+    
+    private boolean enabled = false;
+    
+    // Flash-sale products whose stock is handed out from memory
+    private List<Long> productIds = new ArrayList<>();
+    
+    // Units of each hot product this instance takes from the inventory table at a time. A top-up is
+    // requested when less than a quarter of it is left.
+    private int chunkSize = 200;
+    
+    // Counter stripes per product; 0 uses the number of processors
+    private int stripes = 0;
+    
+    // One journal per instance; instances sharing a disk need different paths
+    private String journalPath = "data/hot-stock.journal";
+}
@@ -1,10 +1,16 @@
 package com.phonecase.inventory.controller;
 
 import com.phonecase.inventory.dto.InventoryDTO;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineDTO;
 import com.phonecase.inventory.service.InventoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -30,9 +36,10 @@ public class InventoryController {
     }
     
     @GetMapping("/admin/inventory")
-    public ResponseEntity<List<InventoryDTO>> getAllInventory() {
-        List<InventoryDTO> inventory = inventoryService.getAllInventory();
-        return ResponseEntity.ok(inventory);
+    public ResponseEntity<StreamingResponseBody> getAllInventory() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(inventoryService.streamAllInventory());
     }
     
     @GetMapping("/admin/inventory/low-stock")
@@ -41,6 +48,12 @@ public class InventoryController {
         return ResponseEntity.ok(items);
     }
     
+    // Server-sent events named "low-stock", one per product crossing its reorder level in either direction
+    @GetMapping(value = "/admin/inventory/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockChanges() {
+        return inventoryService.streamLowStockChanges();
+    }
+    
     @PutMapping("/admin/inventory/{productId}")
     public ResponseEntity<?> updateInventory(@PathVariable("productId") Long productId, @RequestParam("quantity") Integer quantity) {
         try {
@@ -54,9 +67,10 @@ public class InventoryController {
     }
     
     @PostMapping("/reserve")
-    public ResponseEntity<?> reserveQuantity(@RequestParam("productId") Long productId, @RequestParam("quantity") Integer quantity) {
+    public ResponseEntity<?> reserveQuantity(@RequestParam("productId") Long productId, @RequestParam("quantity") Integer quantity,
+            @RequestParam(value = "reference", required = false) String reference) {
         try {
-            InventoryDTO updated = inventoryService.reserveQuantity(productId, quantity);
+            InventoryDTO updated = inventoryService.reserveQuantity(productId, quantity, reference);
             return ResponseEntity.ok(updated);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
@@ -66,9 +80,10 @@ public class InventoryController {
     }
     
     @PostMapping("/deduct")
-    public ResponseEntity<?> deductQuantity(@RequestParam("productId") Long productId, @RequestParam("quantity") Integer quantity) {
+    public ResponseEntity<?> deductQuantity(@RequestParam("productId") Long productId, @RequestParam("quantity") Integer quantity,
+            @RequestParam(value = "reference", required = false) String reference) {
         try {
-            InventoryDTO updated = inventoryService.deductQuantity(productId, quantity);
+            InventoryDTO updated = inventoryService.deductQuantity(productId, quantity, reference);
             return ResponseEntity.ok(updated);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
@@ -77,6 +92,22 @@ public class InventoryController {
         }
     }
     
+    // All-or-nothing over every line; 409 with per-line availability when any line is short.
+    // The hold expires after inventory.reservation.hold-ttl unless deducted with the same reference.
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<StockBatchResultDTO> reserveBatch(@RequestBody List<StockLineDTO> lines,
+            @RequestParam(value = "reference", required = false) String reference) {
+        StockBatchResultDTO result = inventoryService.reserveBatch(lines, reference);
+        return ResponseEntity.status(result.isSuccess() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+    }
+    
+    @PostMapping("/deduct/batch")
+    public ResponseEntity<StockBatchResultDTO> deductBatch(@RequestBody List<StockLineDTO> lines,
+            @RequestParam(value = "reference", required = false) String reference) {
+        StockBatchResultDTO result = inventoryService.deductBatch(lines, reference);
+        return ResponseEntity.status(result.isSuccess() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+    }
+    
     @DeleteMapping("/admin/inventory/{productId}")
     public ResponseEntity<?> deleteInventory(@PathVariable("productId") Long productId) {
         try {
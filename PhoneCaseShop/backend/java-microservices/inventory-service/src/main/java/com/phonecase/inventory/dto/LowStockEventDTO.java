@@ -0,0 +1,18 @@
+package com.phonecase.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockEventDTO {
+    private Long productId;
+    private boolean lowStock; // true when available stock fell below the reorder level, false when it recovered
+    private Integer availableQuantity; // null when the inventory record was deleted
+    private Integer reorderLevel;
+    private LocalDateTime occurredAt;
+}
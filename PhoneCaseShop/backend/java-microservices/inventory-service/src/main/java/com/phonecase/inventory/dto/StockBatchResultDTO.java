@@ -0,0 +1,17 @@
+package com.phonecase.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Outcome of a batch reserve or deduct. The batch is all-or-nothing: when success is false no line
+// was applied, and the lines show which products were short.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchResultDTO {
+    private boolean success;
+    private List<StockLineResultDTO> lines;
+}
@@ -0,0 +1,13 @@
+package com.phonecase.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLineDTO {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,15 @@
+package com.phonecase.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLineResultDTO {
+    private Long productId;
+    private Integer requested;
+    private Integer available; // null when the product has no inventory record
+    private boolean sufficient;
+}
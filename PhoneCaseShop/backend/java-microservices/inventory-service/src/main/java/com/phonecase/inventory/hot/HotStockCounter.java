@@ -0,0 +1,75 @@
+package com.phonecase.inventory.hot;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Units of one hot product held in memory, split over stripes so concurrent reservations CAS on
+// different cache lines. A reservation is taken whole from a single stripe, starting at the calling
+// thread's home stripe.
+public final class HotStockCounter {
+    
+    // Ints per 64-byte cache line, so neighbouring stripes never share a line
+    private static final int PAD = 16;
+    
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+    
+    public HotStockCounter(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be at least 1");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PAD);
+    }
+    
+    // False when no single stripe holds enough; the caller then falls back to the database
+    public boolean tryTake(int quantity) {
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            int index = ((home + i) % stripes) * PAD;
+            int current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    public void giveBack(int quantity) {
+        cells.addAndGet(homeStripe() * PAD, quantity);
+    }
+    
+    // Spreads units evenly over the stripes
+    public void add(int quantity) {
+        int share = quantity / stripes;
+        int rest = quantity % stripes;
+        for (int i = 0; i < stripes; i++) {
+            int units = share + (i < rest ? 1 : 0);
+            if (units > 0) {
+                cells.addAndGet(i * PAD, units);
+            }
+        }
+    }
+    
+    // Empties every stripe and returns what was in them
+    public int drain() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PAD, 0);
+        }
+        return total;
+    }
+    
+    public int remaining() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PAD);
+        }
+        return total;
+    }
+    
+    private int homeStripe() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
@@ -0,0 +1,301 @@
+package com.phonecase.inventory.hot;
+
+import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.inventory.config.HotStockProperties;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineResultDTO;
+import com.phonecase.inventory.entity.Inventory;
+import com.phonecase.inventory.repository.InventoryRepository;
+import com.phonecase.inventory.service.StockReservationEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reserves flash-sale products from in-memory counters instead of the inventory table.
+//
+// Each instance takes a chunk of a hot product's stock from the table by adding it to
+// reserved_quantity (its escrow), and hands reservations out of that chunk with a CAS. Units in
+// escrow are already reserved in the table, so other instances and the database path can never sell
+// them twice, and a reservation needs no database write at all. A scheduled flush tops the escrow up
+// in one pass over the hot products. Anything the counters cannot serve falls back to the base engine.
+//
+// The journal records escrow movements. On startup, escrow that a crashed instance took but never
+// handed out is given back to the table. A reservation's record is forced to disk before the
+// transaction using it commits, so recovery never gives back units an order already holds.
+@Component
+@Primary
+@ConditionalOnProperty(name = "inventory.reservation.hot.enabled", havingValue = "true")
+public class HotStockReservationEngine implements StockReservationEngine {
+    
+    private static final Logger log = LoggerFactory.getLogger(HotStockReservationEngine.class);
+    
+    // Takes up to ? units, or whatever is left, and reports how many were taken
+    private static final String GRANT_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + " +
+            "CASE WHEN quantity - reserved_quantity < ? THEN quantity - reserved_quantity ELSE ? END, " +
+            "last_updated = GETDATE() " +
+            "OUTPUT inserted.reserved_quantity - deleted.reserved_quantity " +
+            "WHERE product_id = ? AND quantity - reserved_quantity > 0";
+    
+    private static final String RETURN_SQL =
+            "UPDATE inventory SET reserved_quantity = CASE WHEN reserved_quantity > ? THEN reserved_quantity - ? ELSE 0 END, " +
+            "last_updated = GETDATE() WHERE product_id = ?";
+    
+    @Autowired
+    @Qualifier("baseStockReservationEngine")
+    private StockReservationEngine delegate;
+    
+    @Autowired
+    private HotStockProperties properties;
+    
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    private final Map<Long, HotStockCounter> counters = new ConcurrentHashMap<>();
+    
+    private ReservationJournal journal;
+    
+    private volatile boolean open;
+    
+    private Counter servedFromMemory;
+    private Counter fellBack;
+    
+    @PostConstruct
+    void init() throws IOException {
+        journal = new ReservationJournal(Paths.get(properties.getJournalPath()));
+        recover();
+        
+        int stripes = properties.getStripes() > 0 ? properties.getStripes() : Runtime.getRuntime().availableProcessors();
+        for (Long productId : properties.getProductIds()) {
+            HotStockCounter counter = new HotStockCounter(stripes);
+            counters.put(productId, counter);
+            if (meterRegistry != null) {
+                Gauge.builder("inventory.hot.escrow", counter, HotStockCounter::remaining)
+                        .tag("product", productId.toString())
+                        .register(meterRegistry);
+            }
+        }
+        if (meterRegistry != null) {
+            servedFromMemory = Counter.builder("inventory.hot.reservations").tag("source", "memory").register(meterRegistry);
+            fellBack = Counter.builder("inventory.hot.reservations").tag("source", "database").register(meterRegistry);
+        }
+        
+        open = true;
+        flush();
+    }
+    
+    @Override
+    public Inventory reserve(Long productId, int quantity) {
+        HotStockCounter counter = open ? counters.get(productId) : null;
+        if (counter == null || !take(productId, counter, quantity)) {
+            count(fellBack);
+            return delegate.reserve(productId, quantity);
+        }
+        count(servedFromMemory);
+        bindToTransaction(productId, quantity);
+        return inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
+    }
+    
+    // Handed-out units are part of reserved_quantity, so shipping them is the base engine's usual deduct
+    @Override
+    public Inventory deduct(Long productId, int quantity, int reserved) {
+        return delegate.deduct(productId, quantity, reserved);
+    }
+    
+    @Override
+    public StockBatchResultDTO reserveBatch(SortedMap<Long, Integer> lines) {
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        List<StockLineResultDTO> results = new ArrayList<>(lines.size());
+        SortedMap<Long, Integer> rest = new TreeMap<>();
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            HotStockCounter counter = open ? counters.get(line.getKey()) : null;
+            if (counter != null && take(line.getKey(), counter, line.getValue())) {
+                taken.put(line.getKey(), line.getValue());
+                results.add(new StockLineResultDTO(line.getKey(), line.getValue(),
+                        counter.remaining() + line.getValue(), true));
+            } else {
+                rest.put(line.getKey(), line.getValue());
+            }
+        }
+        count(servedFromMemory, taken.size());
+        
+        boolean success = true;
+        if (!rest.isEmpty()) {
+            count(fellBack, rest.size());
+            StockBatchResultDTO restResult = delegate.reserveBatch(rest);
+            results.addAll(restResult.getLines());
+            success = restResult.isSuccess();
+        }
+        
+        if (success) {
+            taken.forEach(this::bindToTransaction);
+        } else {
+            // All-or-nothing: the lines served from memory go back too
+            taken.forEach(this::giveBack);
+        }
+        results.sort(Comparator.comparing(StockLineResultDTO::getProductId));
+        return new StockBatchResultDTO(success, results);
+    }
+    
+    @Override
+    public StockBatchResultDTO deductBatch(SortedMap<Long, Integer> lines, Map<Long, Integer> reserved) {
+        return delegate.deductBatch(lines, reserved);
+    }
+    
+    // Tops up every escrow that has run low
+    @Scheduled(fixedDelayString = "${inventory.reservation.hot.flush-interval-ms:200}")
+    public void flush() {
+        if (!open) {
+            return;
+        }
+        int chunk = properties.getChunkSize();
+        Map<Long, Integer> granted = new LinkedHashMap<>();
+        for (Map.Entry<Long, HotStockCounter> entry : counters.entrySet()) {
+            int remaining = entry.getValue().remaining();
+            if (remaining >= chunk / 4) {
+                continue;
+            }
+            int want = chunk - remaining;
+            List<Integer> result = jdbcTemplate.queryForList(GRANT_SQL, Integer.class, want, want, entry.getKey());
+            if (!result.isEmpty() && result.get(0) > 0) {
+                // Journalled only after the table update committed: a crash in between leaves the
+                // units reserved (undersold) but can never cause them to be sold twice
+                journal.append(ReservationJournal.GRANT, entry.getKey(), result.get(0));
+                granted.put(entry.getKey(), result.get(0));
+            }
+        }
+        journal.sync();
+        granted.forEach((productId, units) -> counters.get(productId).add(units));
+    }
+    
+    @PreDestroy
+    void shutdown() throws IOException {
+        open = false;
+        for (Map.Entry<Long, HotStockCounter> entry : counters.entrySet()) {
+            giveBackToTable(entry.getKey(), entry.getValue().drain());
+        }
+        journal.reset();
+        journal.close();
+    }
+    
+    private void recover() throws IOException {
+        Map<Long, Long> unused = journal.unusedUnits();
+        for (Map.Entry<Long, Long> entry : unused.entrySet()) {
+            if (entry.getValue() > 0) {
+                log.warn("Returning {} unused escrow units of product {} left by an unclean shutdown",
+                        entry.getValue(), entry.getKey());
+                giveBackToTable(entry.getKey(), (int) Math.min(Integer.MAX_VALUE, entry.getValue()));
+            }
+        }
+        journal.reset();
+    }
+    
+    // The RETURN record is forced before the table update: a crash in between leaves the units
+    // reserved rather than returning them twice
+    private void giveBackToTable(Long productId, int units) {
+        if (units <= 0) {
+            return;
+        }
+        journal.append(ReservationJournal.RETURN, productId, units);
+        journal.sync();
+        jdbcTemplate.update(RETURN_SQL, units, units, productId);
+    }
+    
+    private boolean take(Long productId, HotStockCounter counter, int quantity) {
+        if (!counter.tryTake(quantity)) {
+            return false;
+        }
+        try {
+            journal.append(ReservationJournal.RESERVE, productId, quantity);
+        } catch (UncheckedIOException e) {
+            counter.giveBack(quantity);
+            return false;
+        }
+        return true;
+    }
+    
+    private void giveBack(Long productId, int quantity) {
+        counters.get(productId).giveBack(quantity);
+        try {
+            journal.append(ReservationJournal.UNRESERVE, productId, quantity);
+        } catch (UncheckedIOException e) {
+            // The units stay counted as handed out; after a crash they are left reserved, not resold
+            log.warn("Could not journal returned reservation of product {}: {}", productId, e.getMessage());
+        }
+    }
+    
+    // The RESERVE record must be on disk before the reservation is committed: otherwise a crash could
+    // lose it and recovery would give back units an order holds. Concurrent commits share one force.
+    // A reservation made inside a transaction that later rolls back goes back to memory.
+    private void bindToTransaction(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            syncOrGiveBack(productId, quantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Throwing here rolls the transaction back, and afterCompletion gives the units back
+                journal.sync();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    giveBack(productId, quantity);
+                }
+            }
+        });
+    }
+    
+    private void syncOrGiveBack(Long productId, int quantity) {
+        try {
+            journal.sync();
+        } catch (UncheckedIOException e) {
+            giveBack(productId, quantity);
+            throw e;
+        }
+    }
+    
+    private static void count(Counter counter) {
+        count(counter, 1);
+    }
+    
+    private static void count(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+}
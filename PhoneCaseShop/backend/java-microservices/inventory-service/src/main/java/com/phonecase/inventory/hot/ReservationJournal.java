@@ -0,0 +1,111 @@
+package com.phonecase.inventory.hot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Append-only log of how hot-product units move between the inventory table, this instance's memory
+// and orders. After a crash it tells how many units were taken from the table but never handed out,
+// so they can be given back. Records are 13 bytes: type, product id, quantity.
+public final class ReservationJournal implements Closeable {
+    
+    public static final byte GRANT = 1;      // units taken from the inventory table into memory
+    public static final byte RESERVE = 2;    // units handed out to an order
+    public static final byte UNRESERVE = 3;  // a handed-out reservation came back to memory
+    public static final byte RETURN = 4;     // units given back to the inventory table
+    
+    private static final int RECORD_SIZE = 13;
+    
+    private final FileChannel channel;
+    
+    // Records appended so far, and how many of them the last force() covered
+    private final AtomicLong appended = new AtomicLong();
+    private final Object forceLock = new Object();
+    private long forced;
+    
+    public ReservationJournal(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Relative writes on a FileChannel are serialized, so records from concurrent threads never interleave
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+    
+    // Reaches the OS page cache, so it survives a process crash; sync() makes it survive a power loss
+    public void append(byte type, long productId, int quantity) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.put(type).putLong(productId).putInt(quantity).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appended.incrementAndGet();
+    }
+    
+    // Group commit: returns once every record appended before the call is on disk. Threads that
+    // arrive while a force is running wait for it and share the next one, so concurrent committers
+    // pay for one fsync between them instead of one each.
+    public void sync() {
+        long target = appended.get();
+        synchronized (forceLock) {
+            if (forced >= target) {
+                return;
+            }
+            long covered = appended.get();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            forced = covered;
+        }
+    }
+    
+    // Units per product taken from the table and neither handed out nor returned. A torn last record
+    // is ignored.
+    public Map<Long, Long> unusedUnits() throws IOException {
+        Map<Long, Long> unused = new HashMap<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long position = 0;
+        long size = channel.size();
+        while (position + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) {
+                    break;
+                }
+            }
+            record.flip();
+            byte type = record.get();
+            long productId = record.getLong();
+            int quantity = record.getInt();
+            long delta = type == GRANT || type == UNRESERVE ? quantity : -quantity;
+            unused.merge(productId, delta, Long::sum);
+            position += RECORD_SIZE;
+        }
+        return unused;
+    }
+    
+    public void reset() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.phonecase.inventory.service;
+
+import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineResultDTO;
+import com.phonecase.inventory.entity.Inventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Checks and changes stock in one UPDATE whose WHERE clause only matches when enough stock is left.
+// The row lock is held only for that statement instead of a read-check-write round trip, so
+// reservations on a hot product no longer queue behind a SERIALIZABLE transaction.
+@Component("baseStockReservationEngine")
+@ConditionalOnProperty(name = "inventory.reservation.engine", havingValue = "conditional")
+public class ConditionalStockReservationEngine implements StockReservationEngine {
+    
+    private static final String OUTPUT_COLUMNS =
+            " OUTPUT inserted.id, inserted.product_id, inserted.quantity, inserted.reserved_quantity," +
+            " inserted.reorder_level, inserted.last_updated";
+    
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = GETDATE()" +
+            OUTPUT_COLUMNS + " WHERE product_id = ? AND quantity - reserved_quantity >= ?";
+    
+    // Same rule as the pessimistic deduct: the units on hand must be unreserved or held by the caller
+    private static final String DEDUCT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, " +
+            "reserved_quantity = CASE WHEN reserved_quantity > ? THEN reserved_quantity - ? ELSE 0 END, " +
+            "last_updated = GETDATE()" + OUTPUT_COLUMNS +
+            " WHERE product_id = ? AND quantity >= ? AND quantity - reserved_quantity + ? >= ?";
+    
+    private static final String STOCK_SQL =
+            "SELECT quantity, reserved_quantity FROM inventory WHERE product_id = ?";
+    
+    private static final RowMapper<Inventory> INVENTORY_ROW_MAPPER = (rs, rowNum) -> {
+        Inventory inventory = new Inventory();
+        inventory.setId(rs.getLong("id"));
+        inventory.setProductId(rs.getLong("product_id"));
+        inventory.setQuantity(rs.getInt("quantity"));
+        inventory.setReservedQuantity(rs.getInt("reserved_quantity"));
+        inventory.setAvailableQuantity(inventory.getQuantity() - inventory.getReservedQuantity());
+        inventory.setReorderLevel(rs.getInt("reorder_level"));
+        java.sql.Timestamp lastUpdated = rs.getTimestamp("last_updated");
+        if (lastUpdated != null) {
+            inventory.setLastUpdated(lastUpdated.toLocalDateTime());
+        }
+        return inventory;
+    };
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Inventory reserve(Long productId, int quantity) {
+        List<Inventory> updated = jdbcTemplate.query(RESERVE_SQL, INVENTORY_ROW_MAPPER, quantity, productId, quantity);
+        if (updated.isEmpty()) {
+            throw shortage(productId, quantity);
+        }
+        return updated.get(0);
+    }
+    
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Inventory deduct(Long productId, int quantity, int reserved) {
+        List<Inventory> updated = applyDeduct(productId, quantity, reserved);
+        if (updated.isEmpty()) {
+            throw shortage(productId, quantity, reserved);
+        }
+        return updated.get(0);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockBatchResultDTO reserveBatch(SortedMap<Long, Integer> lines) {
+        return applyBatch(lines, null);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockBatchResultDTO deductBatch(SortedMap<Long, Integer> lines, Map<Long, Integer> reserved) {
+        return applyBatch(lines, reserved);
+    }
+    
+    private List<Inventory> applyDeduct(Long productId, int quantity, int reserved) {
+        return jdbcTemplate.query(DEDUCT_SQL, INVENTORY_ROW_MAPPER,
+                quantity, reserved, reserved, productId, quantity, reserved, quantity);
+    }
+    
+    // Applies lines in product id order and stops at the first short one; the remaining lines are only
+    // read. Lines already applied stay in the caller's transaction, which rolls back on failure.
+    // Reserves the lines, or deducts them when reserved is given.
+    private StockBatchResultDTO applyBatch(SortedMap<Long, Integer> quantities, Map<Long, Integer> reserved) {
+        List<StockLineResultDTO> results = new ArrayList<>(quantities.size());
+        boolean success = true;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Long productId = line.getKey();
+            int quantity = line.getValue();
+            int released = reserved == null ? 0 : reserved.getOrDefault(productId, 0);
+            if (success) {
+                List<Inventory> updated = reserved != null
+                        ? applyDeduct(productId, quantity, released)
+                        : jdbcTemplate.query(RESERVE_SQL, INVENTORY_ROW_MAPPER, quantity, productId, quantity);
+                if (!updated.isEmpty()) {
+                    // Report what was available before this line was applied; a deduct released its
+                    // held units along with the quantity, so that is the same sum
+                    Inventory after = updated.get(0);
+                    results.add(new StockLineResultDTO(productId, quantity, after.getAvailableQuantity() + quantity, true));
+                    continue;
+                }
+                success = false;
+            }
+            Integer available = reserved != null ? available(productId, released) : available(productId);
+            results.add(new StockLineResultDTO(productId, quantity, available, available != null && available >= quantity));
+        }
+        return new StockBatchResultDTO(success, results);
+    }
+    
+    private Integer available(Long productId) {
+        return jdbcTemplate.query(STOCK_SQL, rs -> rs.next() ? rs.getInt(1) - rs.getInt(2) : null, productId);
+    }
+    
+    // What a deduct holding the given reserved units could take
+    private Integer available(Long productId, int reserved) {
+        return jdbcTemplate.query(STOCK_SQL,
+                rs -> rs.next() ? Math.min(rs.getInt(1), rs.getInt(1) - rs.getInt(2) + reserved) : null, productId);
+    }
+    
+    private RuntimeException shortage(Long productId, int quantity) {
+        return shortage(available(productId), productId, quantity);
+    }
+    
+    private RuntimeException shortage(Long productId, int quantity, int reserved) {
+        return shortage(available(productId, reserved), productId, quantity);
+    }
+    
+    private RuntimeException shortage(Integer available, Long productId, int quantity) {
+        if (available == null) {
+            return new ResourceNotFoundException("Inventory", productId);
+        }
+        return new BadRequestException(
+            String.format("Insufficient stock. Available: %d, Requested: %d", available, quantity)
+        );
+    }
+}
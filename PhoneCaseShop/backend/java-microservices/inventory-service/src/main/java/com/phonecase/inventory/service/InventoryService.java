@@ -1,12 +1,16 @@
 package com.phonecase.inventory.service;
 
 import com.phonecase.inventory.dto.InventoryDTO;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineDTO;
 import com.phonecase.inventory.entity.Inventory;
 import com.phonecase.inventory.repository.InventoryRepository;
 import com.phonecase.common.exception.BadRequestException;
 import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.common.streaming.JsonArrayStreamer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.retry.annotation.Backoff;
@@ -14,11 +18,17 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 public class InventoryService {
@@ -29,13 +39,29 @@ public class InventoryService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+    
+    @Autowired
+    private ReservationLedger reservationLedger;
+    
+    @Autowired
+    private LowStockFeed lowStockFeed;
+    
+    // How long a reservation made through the API holds stock before the sweeper releases it
+    @Value("${inventory.reservation.hold-ttl:15m}")
+    private Duration holdTtl;
+    
     public InventoryDTO getInventoryByProductId(Long productId) {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
         return convertToDTO(inventory);
     }
     
-    public List<InventoryDTO> getAllInventory() {
+    public StreamingResponseBody streamAllInventory() {
         // Use JdbcTemplate to join with products table and get product name
         String sql = "SELECT i.id, i.product_id, p.name as product_name, i.quantity, " +
                      "i.reserved_quantity, i.available_quantity, i.reorder_level, i.last_updated " +
@@ -43,7 +69,7 @@ public class InventoryService {
                      "LEFT JOIN products p ON i.product_id = p.id " +
                      "ORDER BY i.id";
         
-        return jdbcTemplate.query(sql, new InventoryDTORowMapper());
+        return jsonArrayStreamer.stream(sql, new InventoryDTORowMapper());
     }
     
     private static class InventoryDTORowMapper implements RowMapper<InventoryDTO> {
@@ -65,11 +91,19 @@ public class InventoryService {
         }
     }
     
+    // Seeks IX_inventory_low_stock on the persisted is_low_stock column instead of scanning the table
     public List<InventoryDTO> getLowStockItems() {
-        return inventoryRepository.findAll().stream()
-                .filter(inv -> inv.getAvailableQuantity() < inv.getReorderLevel())
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        String sql = "SELECT i.id, i.product_id, p.name as product_name, i.quantity, " +
+                     "i.reserved_quantity, i.available_quantity, i.reorder_level, i.last_updated " +
+                     "FROM inventory i " +
+                     "LEFT JOIN products p ON i.product_id = p.id " +
+                     "WHERE i.is_low_stock = 1 " +
+                     "ORDER BY i.product_id";
+        return jdbcTemplate.query(sql, new InventoryDTORowMapper());
+    }
+    
+    public SseEmitter streamLowStockChanges() {
+        return lowStockFeed.subscribe();
     }
     
     @Transactional(isolation = Isolation.READ_COMMITTED)
@@ -87,70 +121,106 @@ public class InventoryService {
         
         inventory.setQuantity(quantity);
         inventory = inventoryRepository.save(inventory);
+        lowStockFeed.watch(List.of(productId));
         return convertToDTO(inventory);
     }
     
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @Retryable(value = DeadlockLoserDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
-    public InventoryDTO reserveQuantity(Long productId, Integer quantity) {
+    // The stock change and its ledger hold commit together; a deadlock retries both
+    @Transactional
+    @Retryable(value = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public InventoryDTO reserveQuantity(Long productId, Integer quantity, String reference) {
         if (quantity == null || quantity <= 0) {
             throw new BadRequestException("Quantity must be greater than 0");
         }
-        
-        // Use pessimistic locking to prevent double spending
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
-        
-        if (inventory.getAvailableQuantity() < quantity) {
-            throw new BadRequestException(
-                String.format("Insufficient stock. Available: %d, Requested: %d",
-                    inventory.getAvailableQuantity(), quantity)
-            );
-        }
-        
-        inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
-        inventory = inventoryRepository.save(inventory);
+        Inventory inventory = stockReservationEngine.reserve(productId, quantity);
+        reservationLedger.hold(new TreeMap<>(Map.of(productId, quantity)), reference, holdTtl);
+        lowStockFeed.watch(List.of(productId));
         return convertToDTO(inventory);
     }
     
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public InventoryDTO releaseReservedQuantity(Long productId, Integer quantity) {
+    public InventoryDTO releaseReservedQuantity(Long productId, Integer quantity, String reference) {
         if (quantity == null || quantity <= 0) {
             throw new BadRequestException("Quantity must be greater than 0");
         }
         
+        // Only units still held go back; a hold that expired was already released by the sweeper
+        int released = reservationLedger.close(new TreeMap<>(Map.of(productId, quantity)), reference,
+                ReservationLedger.RELEASED).getOrDefault(productId, 0);
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
         
-        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - quantity));
+        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - released));
         inventory = inventoryRepository.save(inventory);
+        lowStockFeed.watch(List.of(productId));
         return convertToDTO(inventory);
     }
     
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @Retryable(value = DeadlockLoserDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
-    public InventoryDTO deductQuantity(Long productId, Integer quantity) {
+    @Transactional
+    @Retryable(value = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public InventoryDTO deductQuantity(Long productId, Integer quantity, String reference) {
         if (quantity == null || quantity <= 0) {
             throw new BadRequestException("Quantity must be greater than 0");
         }
-        
-        // Use pessimistic locking to prevent double spending
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
-        
-        if (inventory.getAvailableQuantity() < quantity) {
-            throw new BadRequestException(
-                String.format("Insufficient stock. Available: %d, Requested: %d",
-                    inventory.getAvailableQuantity(), quantity)
-            );
-        }
-        
-        inventory.setQuantity(inventory.getQuantity() - quantity);
-        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - quantity));
-        inventory = inventoryRepository.save(inventory);
+        // Units whose hold has expired are no longer reserved, so they must come from unreserved stock
+        int held = reservationLedger.close(new TreeMap<>(Map.of(productId, quantity)), reference,
+                ReservationLedger.CONSUMED).getOrDefault(productId, 0);
+        Inventory inventory = stockReservationEngine.deduct(productId, quantity, held);
+        lowStockFeed.watch(List.of(productId));
         return convertToDTO(inventory);
     }
     
+    // Reserves every line of a multi-line order in one transaction, or none of them
+    @Transactional
+    @Retryable(value = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public StockBatchResultDTO reserveBatch(List<StockLineDTO> lines, String reference) {
+        SortedMap<Long, Integer> quantities = mergeLines(lines);
+        StockBatchResultDTO result = stockReservationEngine.reserveBatch(quantities);
+        if (result.isSuccess()) {
+            reservationLedger.hold(quantities, reference, holdTtl);
+            lowStockFeed.watch(quantities.keySet());
+        } else {
+            // Undoes the lines an engine applied before the short one
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        return result;
+    }
+    
+    // Ships stock reserved for an order: units still held under the reference leave their holds, units
+    // whose hold has expired must be unreserved so they never come out of other orders' holds
+    @Transactional
+    @Retryable(value = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public StockBatchResultDTO deductBatch(List<StockLineDTO> lines, String reference) {
+        SortedMap<Long, Integer> quantities = mergeLines(lines);
+        SortedMap<Long, Integer> held = reservationLedger.close(quantities, reference, ReservationLedger.CONSUMED);
+        StockBatchResultDTO result = stockReservationEngine.deductBatch(quantities, held);
+        if (result.isSuccess()) {
+            lowStockFeed.watch(quantities.keySet());
+        } else {
+            // Undoes the closed holds and the lines an engine applied before the short one
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        return result;
+    }
+    
+    // Validates the lines and sums repeated products, sorted by product id
+    static SortedMap<Long, Integer> mergeLines(List<StockLineDTO> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new BadRequestException("At least one line is required");
+        }
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (StockLineDTO line : lines) {
+            if (line.getProductId() == null) {
+                throw new BadRequestException("Product ID is required");
+            }
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new BadRequestException("Quantity must be greater than 0");
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
     public boolean checkStockAvailability(Long productId, Integer quantity) {
         return inventoryRepository.findByProductId(productId)
                 .map(inv -> inv.getAvailableQuantity() >= quantity)
@@ -167,7 +237,7 @@ public class InventoryService {
         InventoryDTO dto = new InventoryDTO();
         dto.setId(inventory.getId());
         dto.setProductId(inventory.getProductId());
-        dto.setProductName(null); // Will be set when using getAllInventory with JOIN
+        dto.setProductName(null); // Will be set when using streamAllInventory with JOIN
         dto.setQuantity(inventory.getQuantity());
         dto.setReservedQuantity(inventory.getReservedQuantity());
         dto.setAvailableQuantity(inventory.getAvailableQuantity());
@@ -0,0 +1,176 @@
+package com.phonecase.inventory.service;
+
+import com.phonecase.inventory.dto.LowStockEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Pushes low-stock threshold crossings to subscribed admin dashboards over SSE.
+//
+// Writes report the products they touched; once the transaction commits their is_low_stock flag is
+// re-read and compared with the last known state, so only products that crossed the reorder level
+// produce an event. A periodic reconcile over the low-stock index picks up changes made by other
+// instances or directly in the database.
+@Component
+public class LowStockFeed {
+    
+    private static final Logger log = LoggerFactory.getLogger(LowStockFeed.class);
+    
+    public static final String EVENT_NAME = "low-stock";
+    
+    private static final String LOW_STOCK_SQL =
+            "SELECT product_id, available_quantity, reorder_level FROM inventory WHERE is_low_stock = 1";
+    
+    private static final String STATE_SQL =
+            "SELECT product_id, is_low_stock, available_quantity, reorder_level FROM inventory WHERE product_id IN (%s)";
+    
+    @Value("${inventory.low-stock.stream-timeout:30m}")
+    private Duration streamTimeout;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final Set<Long> lowStock = ConcurrentHashMap.newKeySet();
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean seeded;
+    
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        try {
+            // Commits the response headers so proxies see the stream open right away
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+    
+    // Re-checks the products after the current transaction commits, or right away without one.
+    // With nobody listening the check is skipped and the next reconcile re-seeds the state without events.
+    public void watch(Collection<Long> productIds) {
+        if (productIds.isEmpty() || subscribers.isEmpty() || !seeded) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(ids);
+                }
+            });
+        } else {
+            refresh(ids);
+        }
+    }
+    
+    @Scheduled(initialDelay = 0, fixedDelayString = "${inventory.low-stock.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        try {
+            // Crossings nobody was listening for are not replayed to the next subscriber
+            boolean announce = seeded && !subscribers.isEmpty();
+            Set<Long> current = new HashSet<>();
+            List<LowStockEventDTO> crossed = new ArrayList<>();
+            jdbcTemplate.query(LOW_STOCK_SQL, rs -> {
+                long productId = rs.getLong("product_id");
+                current.add(productId);
+                if (lowStock.add(productId) && announce) {
+                    crossed.add(new LowStockEventDTO(productId, true, rs.getInt("available_quantity"),
+                            rs.getInt("reorder_level"), LocalDateTime.now()));
+                }
+            });
+            List<Long> recovered = new ArrayList<>();
+            for (Long productId : lowStock) {
+                if (!current.contains(productId)) {
+                    recovered.add(productId);
+                }
+            }
+            seeded = true;
+            if (announce) {
+                crossed.forEach(this::publish);
+                refresh(recovered);
+            } else {
+                recovered.forEach(lowStock::remove);
+            }
+            heartbeat();
+        } catch (DataAccessException e) {
+            log.warn("Low-stock reconcile failed: {}", e.getMessage());
+        }
+    }
+    
+    private void refresh(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        String sql = String.format(STATE_SQL, String.join(",", Collections.nCopies(productIds.size(), "?")));
+        List<LowStockEventDTO> crossed = new ArrayList<>();
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                long productId = rs.getLong("product_id");
+                missing.remove(productId);
+                boolean low = rs.getBoolean("is_low_stock");
+                // add/remove decide the crossing, so concurrent refreshes emit it only once
+                if (low ? lowStock.add(productId) : lowStock.remove(productId)) {
+                    crossed.add(new LowStockEventDTO(productId, low, rs.getInt("available_quantity"),
+                            rs.getInt("reorder_level"), LocalDateTime.now()));
+                }
+            }, productIds.toArray());
+        } catch (DataAccessException e) {
+            // The next reconcile catches up
+            log.warn("Low-stock refresh failed: {}", e.getMessage());
+            return;
+        }
+        for (Long productId : missing) {
+            if (lowStock.remove(productId)) {
+                crossed.add(new LowStockEventDTO(productId, false, null, null, LocalDateTime.now()));
+            }
+        }
+        crossed.forEach(this::publish);
+    }
+    
+    private void publish(LowStockEventDTO event) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+            }
+        }
+    }
+    
+    private void heartbeat() {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+            }
+        }
+    }
+}
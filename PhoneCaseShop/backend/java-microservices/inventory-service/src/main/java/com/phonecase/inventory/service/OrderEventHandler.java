@@ -0,0 +1,142 @@
+package com.phonecase.inventory.service;
+
+import com.phonecase.common.event.OrderEvent;
+import com.phonecase.common.event.OrderEventResult;
+import com.phonecase.common.event.ProcessedEventLog;
+import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineDTO;
+import com.phonecase.inventory.dto.StockLineResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+// Applies order events from order-service to stock. Each event is handled in its own transaction
+// together with its processed_order_events row, so a redelivered event changes nothing.
+// Stock reserved for an order is held in the ledger under "order:<id>" and never expires.
+@Service
+public class OrderEventHandler {
+    
+    static final String CONSUMER = "inventory-service";
+    
+    private static final String RELEASE_SQL =
+            "UPDATE inventory SET reserved_quantity = CASE WHEN reserved_quantity > ? THEN reserved_quantity - ? ELSE 0 END, " +
+            "last_updated = GETDATE() WHERE product_id = ?";
+    
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+    
+    @Autowired
+    private ReservationLedger reservationLedger;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ProcessedEventLog processedEventLog;
+    
+    @Autowired
+    private LowStockFeed lowStockFeed;
+    
+    @Transactional
+    @Retryable(value = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public OrderEventResult handle(OrderEvent event) {
+        if (!processedEventLog.claim(CONSUMER, event.getEventId())) {
+            return new OrderEventResult(event.getEventId(), OrderEventResult.DUPLICATE, null);
+        }
+        
+        List<StockLineDTO> lines = productLines(event);
+        if (!lines.isEmpty()) {
+            SortedMap<Long, Integer> quantities = InventoryService.mergeLines(lines);
+            String reference = reference(event);
+            switch (event.getType()) {
+                case OrderEvent.ORDER_CREATED:
+                    requireSuccess(stockReservationEngine.reserveBatch(quantities));
+                    reservationLedger.hold(quantities, reference, null);
+                    break;
+                case OrderEvent.ORDER_SHIPPED:
+                case OrderEvent.ORDER_DELIVERED:
+                    // Every shipped line leaves stock. What the order still holds comes out of its own
+                    // holds; the rest, e.g. for an order whose reservation was rejected, must be
+                    // unreserved stock, so other orders' holds are never touched. Otherwise the event
+                    // is rejected and nothing is deducted.
+                    SortedMap<Long, Integer> reserved = reservationLedger.closeReference(reference, ReservationLedger.CONSUMED);
+                    requireSuccess(stockReservationEngine.deductBatch(quantities, reserved));
+                    break;
+                case OrderEvent.ORDER_CANCELLED:
+                case OrderEvent.ORDER_RETURNED:
+                    // Only what the order still holds goes back, never more than was reserved for it.
+                    // A returned order was normally shipped already and holds nothing; returned goods
+                    // are restocked by hand after inspection.
+                    List<Map.Entry<Long, Integer>> held = new ArrayList<>(
+                            reservationLedger.closeReference(reference, ReservationLedger.RELEASED).entrySet());
+                    jdbcTemplate.batchUpdate(RELEASE_SQL, held, held.size(), (ps, line) -> {
+                        ps.setInt(1, line.getValue());
+                        ps.setInt(2, line.getValue());
+                        ps.setLong(3, line.getKey());
+                    });
+                    break;
+                default:
+                    throw new BadRequestException("Unknown order event type: " + event.getType());
+            }
+            lowStockFeed.watch(quantities.keySet());
+        }
+        return new OrderEventResult(event.getEventId(), OrderEventResult.PROCESSED, null);
+    }
+    
+    // Called after handle() failed and rolled back, so the refusal is recorded and not retried
+    @Transactional
+    public OrderEventResult reject(OrderEvent event, String reason) {
+        if (!processedEventLog.record(CONSUMER, event.getEventId(), OrderEventResult.REJECTED, reason)) {
+            return new OrderEventResult(event.getEventId(), OrderEventResult.DUPLICATE, null);
+        }
+        return new OrderEventResult(event.getEventId(), OrderEventResult.REJECTED, reason);
+    }
+    
+    private static void requireSuccess(StockBatchResultDTO result) {
+        if (!result.isSuccess()) {
+            String shortLines = result.getLines().stream()
+                    .filter(line -> !line.isSufficient())
+                    .map(OrderEventHandler::describe)
+                    .collect(Collectors.joining(", "));
+            throw new BadRequestException("Insufficient stock: " + shortLines);
+        }
+    }
+    
+    private static String reference(OrderEvent event) {
+        return "order:" + event.getOrderId();
+    }
+    
+    private static String describe(StockLineResultDTO line) {
+        if (line.getAvailable() == null) {
+            return "product " + line.getProductId() + " has no inventory";
+        }
+        return String.format("product %d available %d, requested %d",
+                line.getProductId(), line.getAvailable(), line.getRequested());
+    }
+    
+    // Custom-design lines carry no product stock. Sorted so rows are always locked in the same order.
+    private static List<StockLineDTO> productLines(OrderEvent event) {
+        List<StockLineDTO> lines = new ArrayList<>();
+        if (event.getItems() != null) {
+            for (OrderEvent.Item item : event.getItems()) {
+                if (item.getProductId() != null && item.getQuantity() != null && item.getQuantity() > 0) {
+                    lines.add(new StockLineDTO(item.getProductId(), item.getQuantity()));
+                }
+            }
+        }
+        lines.sort(Comparator.comparing(StockLineDTO::getProductId));
+        return lines;
+    }
+}
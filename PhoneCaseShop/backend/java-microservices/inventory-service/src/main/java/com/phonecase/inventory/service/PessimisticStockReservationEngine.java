@@ -0,0 +1,134 @@
+package com.phonecase.inventory.service;
+
+import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.dto.StockLineResultDTO;
+import com.phonecase.inventory.entity.Inventory;
+import com.phonecase.inventory.repository.InventoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Locks the inventory row first, then checks and updates it. Every reservation on a product waits
+// for the one before it to commit.
+@Component("baseStockReservationEngine")
+@ConditionalOnProperty(name = "inventory.reservation.engine", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticStockReservationEngine implements StockReservationEngine {
+    
+    private static final String LOCK_STOCK_SQL =
+            "SELECT quantity, reserved_quantity FROM inventory WITH (UPDLOCK, ROWLOCK) WHERE product_id = ?";
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = GETDATE() WHERE product_id = ?";
+    private static final String DEDUCT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, " +
+            "reserved_quantity = CASE WHEN reserved_quantity > ? THEN reserved_quantity - ? ELSE 0 END, " +
+            "last_updated = GETDATE() WHERE product_id = ?";
+    
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public Inventory reserve(Long productId, int quantity) {
+        // Use pessimistic locking to prevent double spending
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
+        
+        if (inventory.getAvailableQuantity() < quantity) {
+            throw new BadRequestException(
+                String.format("Insufficient stock. Available: %d, Requested: %d",
+                    inventory.getAvailableQuantity(), quantity)
+            );
+        }
+        
+        inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
+        return inventoryRepository.save(inventory);
+    }
+    
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public Inventory deduct(Long productId, int quantity, int reserved) {
+        // Use pessimistic locking to prevent double spending
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", productId));
+        
+        int available = deductible(inventory.getQuantity(), inventory.getReservedQuantity(), reserved);
+        if (available < quantity) {
+            throw new BadRequestException(
+                String.format("Insufficient stock. Available: %d, Requested: %d", available, quantity)
+            );
+        }
+        
+        inventory.setQuantity(inventory.getQuantity() - quantity);
+        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - reserved));
+        return inventoryRepository.save(inventory);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockBatchResultDTO reserveBatch(SortedMap<Long, Integer> lines) {
+        return applyBatch(lines, null);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockBatchResultDTO deductBatch(SortedMap<Long, Integer> lines, Map<Long, Integer> reserved) {
+        return applyBatch(lines, reserved);
+    }
+    
+    // Units a deduct can take: those on hand that are unreserved or held by the caller
+    private static int deductible(int quantity, int reservedQuantity, int reserved) {
+        return Math.min(quantity, quantity - reservedQuantity + reserved);
+    }
+    
+    // Reserves the lines, or deducts them when reserved is given
+    private StockBatchResultDTO applyBatch(SortedMap<Long, Integer> quantities, Map<Long, Integer> reserved) {
+        boolean deduct = reserved != null;
+        // Rows are locked in ascending product id order, so concurrent batches always queue
+        // on the same first row instead of deadlocking on each other
+        List<StockLineResultDTO> results = new ArrayList<>(quantities.size());
+        boolean success = true;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            int[] stock = jdbcTemplate.query(LOCK_STOCK_SQL,
+                    rs -> rs.next() ? new int[] { rs.getInt(1), rs.getInt(2) } : null, line.getKey());
+            Integer available = null;
+            if (stock != null) {
+                available = deduct ? deductible(stock[0], stock[1], reserved.getOrDefault(line.getKey(), 0))
+                        : stock[0] - stock[1];
+            }
+            boolean sufficient = available != null && available >= line.getValue();
+            success &= sufficient;
+            results.add(new StockLineResultDTO(line.getKey(), line.getValue(), available, sufficient));
+        }
+        
+        if (success) {
+            List<Map.Entry<Long, Integer>> updates = new ArrayList<>(quantities.entrySet());
+            jdbcTemplate.batchUpdate(deduct ? DEDUCT_SQL : RESERVE_SQL, updates, updates.size(), (ps, line) -> {
+                int quantity = line.getValue();
+                ps.setInt(1, quantity);
+                if (deduct) {
+                    int released = reserved.getOrDefault(line.getKey(), 0);
+                    ps.setInt(2, released);
+                    ps.setInt(3, released);
+                    ps.setLong(4, line.getKey());
+                } else {
+                    ps.setLong(2, line.getKey());
+                }
+            });
+        }
+        return new StockBatchResultDTO(success, results);
+    }
+}
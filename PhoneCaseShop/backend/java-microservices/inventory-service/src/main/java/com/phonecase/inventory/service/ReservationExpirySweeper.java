@@ -0,0 +1,116 @@
+package com.phonecase.inventory.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Releases the stock of holds whose TTL has passed, e.g. abandoned checkouts, a batch at a time.
+// Each batch marks its holds EXPIRED and lowers reserved_quantity in one transaction.
+@Component
+public class ReservationExpirySweeper {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpirySweeper.class);
+    
+    private static final String EXPIRE_SQL =
+            "UPDATE TOP (?) inventory_reservations SET status = 'EXPIRED', closed_at = SYSUTCDATETIME() " +
+            "OUTPUT inserted.product_id, inserted.quantity " +
+            "WHERE status = 'ACTIVE' AND expires_at < SYSUTCDATETIME()";
+    
+    private static final String RELEASE_SQL =
+            "UPDATE inventory SET reserved_quantity = CASE WHEN reserved_quantity > ? THEN reserved_quantity - ? ELSE 0 END, " +
+            "last_updated = GETDATE() WHERE product_id = ?";
+    
+    private static final String ACTIVE_COUNT_SQL =
+            "SELECT COUNT_BIG(*) FROM inventory_reservations WHERE status = 'ACTIVE'";
+    
+    @Value("${inventory.reservation.sweep-batch-size:500}")
+    private int batchSize;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private LowStockFeed lowStockFeed;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private final AtomicLong activeHolds = new AtomicLong();
+    private Counter expiredHolds;
+    private Counter recoveredUnits;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (meterRegistry != null) {
+            Gauge.builder("inventory.reservations.active", activeHolds, AtomicLong::get).register(meterRegistry);
+            expiredHolds = meterRegistry.counter("inventory.reservations.expired");
+            recoveredUnits = meterRegistry.counter("inventory.reservations.recovered.units");
+        }
+    }
+    
+    @Scheduled(initialDelayString = "${inventory.reservation.sweep-interval-ms:30000}",
+               fixedDelayString = "${inventory.reservation.sweep-interval-ms:30000}")
+    public void sweep() {
+        try {
+            int expired;
+            do {
+                expired = transactionTemplate.execute(status -> sweepBatch());
+            } while (expired == batchSize);
+            activeHolds.set(jdbcTemplate.queryForObject(ACTIVE_COUNT_SQL, Long.class));
+        } catch (DataAccessException e) {
+            // Whatever was not swept stays ACTIVE and is picked up by the next run
+            log.warn("Reservation sweep failed: {}", e.getMessage());
+        }
+    }
+    
+    private int sweepBatch() {
+        SortedMap<Long, Integer> units = new TreeMap<>();
+        int[] holds = new int[1];
+        jdbcTemplate.query(EXPIRE_SQL, rs -> {
+            units.merge(rs.getLong(1), rs.getInt(2), Integer::sum);
+            holds[0]++;
+        }, batchSize);
+        if (holds[0] == 0) {
+            return 0;
+        }
+        
+        // Product id order, like every other path that locks inventory rows
+        List<Map.Entry<Long, Integer>> releases = new ArrayList<>(units.entrySet());
+        jdbcTemplate.batchUpdate(RELEASE_SQL, releases, releases.size(), (ps, release) -> {
+            ps.setInt(1, release.getValue());
+            ps.setInt(2, release.getValue());
+            ps.setLong(3, release.getKey());
+        });
+        lowStockFeed.watch(units.keySet());
+        
+        if (expiredHolds != null) {
+            expiredHolds.increment(holds[0]);
+            recoveredUnits.increment(units.values().stream().mapToInt(Integer::intValue).sum());
+        }
+        return holds[0];
+    }
+}
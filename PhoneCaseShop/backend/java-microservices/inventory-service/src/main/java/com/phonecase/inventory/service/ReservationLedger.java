@@ -0,0 +1,106 @@
+package com.phonecase.inventory.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Records who holds reserved stock and until when, in the same transaction as the change to
+// reserved_quantity. Holds end when they are consumed (deducted), released, or expire and are
+// swept by ReservationExpirySweeper.
+@Component
+public class ReservationLedger {
+    
+    public static final String ACTIVE = "ACTIVE";
+    public static final String CONSUMED = "CONSUMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+    
+    private static final String INSERT_EXPIRING_SQL =
+            "INSERT INTO inventory_reservations (product_id, quantity, reference, status, expires_at) " +
+            "VALUES (?, ?, ?, 'ACTIVE', DATEADD(SECOND, ?, SYSUTCDATETIME()))";
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_reservations (product_id, quantity, reference, status) VALUES (?, ?, ?, 'ACTIVE')";
+    
+    // Oldest first, locked so two callers cannot close the same hold
+    private static final String ACTIVE_BY_REFERENCE_SQL =
+            "SELECT id, quantity FROM inventory_reservations WITH (UPDLOCK, ROWLOCK) " +
+            "WHERE product_id = ? AND reference = ? AND status = 'ACTIVE' ORDER BY id";
+    private static final String ACTIVE_ANONYMOUS_SQL =
+            "SELECT id, quantity FROM inventory_reservations WITH (UPDLOCK, ROWLOCK) " +
+            "WHERE product_id = ? AND reference IS NULL AND status = 'ACTIVE' ORDER BY id";
+    
+    private static final String CLOSE_SQL =
+            "UPDATE inventory_reservations SET status = ?, closed_at = SYSUTCDATETIME() WHERE id = ?";
+    private static final String SHRINK_SQL =
+            "UPDATE inventory_reservations SET quantity = quantity - ? WHERE id = ?";
+    private static final String CLOSE_REFERENCE_SQL =
+            "UPDATE inventory_reservations SET status = ?, closed_at = SYSUTCDATETIME() " +
+            "OUTPUT inserted.product_id, inserted.quantity WHERE reference = ? AND status = 'ACTIVE'";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // A null ttl means the hold never expires, e.g. stock reserved for a placed order
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void hold(SortedMap<Long, Integer> lines, String reference, Duration ttl) {
+        List<Map.Entry<Long, Integer>> holds = new ArrayList<>(lines.entrySet());
+        jdbcTemplate.batchUpdate(ttl == null ? INSERT_SQL : INSERT_EXPIRING_SQL, holds, holds.size(), (ps, line) -> {
+            ps.setLong(1, line.getKey());
+            ps.setInt(2, line.getValue());
+            ps.setString(3, reference);
+            if (ttl != null) {
+                ps.setLong(4, ttl.getSeconds());
+            }
+        });
+    }
+    
+    // Closes up to the given quantity per product, oldest hold first, splitting the last one if needed.
+    // Without a reference only holds made without one are closed. Returns the units actually closed by
+    // product id, which is less than asked for when a hold has already expired or was never made.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public SortedMap<Long, Integer> close(SortedMap<Long, Integer> lines, String reference, String status) {
+        SortedMap<Long, Integer> closed = new TreeMap<>();
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            List<long[]> holds = reference == null
+                    ? jdbcTemplate.query(ACTIVE_ANONYMOUS_SQL, (rs, rowNum) -> new long[] { rs.getLong(1), rs.getInt(2) },
+                            line.getKey())
+                    : jdbcTemplate.query(ACTIVE_BY_REFERENCE_SQL, (rs, rowNum) -> new long[] { rs.getLong(1), rs.getInt(2) },
+                            line.getKey(), reference);
+            int left = line.getValue();
+            for (long[] hold : holds) {
+                if (left <= 0) {
+                    break;
+                }
+                if (hold[1] <= left) {
+                    jdbcTemplate.update(CLOSE_SQL, status, hold[0]);
+                    left -= (int) hold[1];
+                } else {
+                    jdbcTemplate.update(SHRINK_SQL, left, hold[0]);
+                    left = 0;
+                }
+            }
+            if (left < line.getValue()) {
+                closed.put(line.getKey(), line.getValue() - left);
+            }
+        }
+        return closed;
+    }
+    
+    // Closes every active hold of a reference and returns the units they held, by product id
+    @Transactional(propagation = Propagation.MANDATORY)
+    public SortedMap<Long, Integer> closeReference(String reference, String status) {
+        SortedMap<Long, Integer> closed = new TreeMap<>();
+        jdbcTemplate.query(CLOSE_REFERENCE_SQL,
+                rs -> { closed.merge(rs.getLong(1), rs.getInt(2), Integer::sum); }, status, reference);
+        return closed;
+    }
+}
@@ -0,0 +1,27 @@
+package com.phonecase.inventory.service;
+
+import com.phonecase.inventory.dto.StockBatchResultDTO;
+import com.phonecase.inventory.entity.Inventory;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+// How stock is reserved and deducted. Selected with inventory.reservation.engine:
+// "pessimistic" (default) locks the row and then checks it, "conditional" checks and
+// updates in a single UPDATE statement.
+public interface StockReservationEngine {
+    
+    // Both throw ResourceNotFoundException for an unknown product and BadRequestException when stock is short
+    Inventory reserve(Long productId, int quantity);
+    
+    // Ships stock. reserved is how many of the units come from the caller's own holds, as closed by
+    // ReservationLedger.close, and only that much leaves reserved_quantity; the rest must be unreserved.
+    Inventory deduct(Long productId, int quantity, int reserved);
+    
+    // Lines are keyed and sorted by product id. All-or-nothing: a failed batch may have applied some
+    // lines, so batches run in the caller's transaction and the caller rolls it back on failure.
+    StockBatchResultDTO reserveBatch(SortedMap<Long, Integer> lines);
+    
+    // Same rule as deduct, with the reserved units per product id; a missing product has none
+    StockBatchResultDTO deductBatch(SortedMap<Long, Integer> lines, Map<Long, Integer> reserved);
+}
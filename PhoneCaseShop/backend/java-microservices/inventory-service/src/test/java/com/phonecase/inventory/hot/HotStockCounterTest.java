@@ -0,0 +1,70 @@
+package com.phonecase.inventory.hot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotStockCounterTest {
+    
+    private static final int THREADS = 16;
+    
+    @Test
+    void neverHandsOutMoreThanItHolds() throws Exception {
+        int stock = 1_000_000;
+        HotStockCounter counter = new HotStockCounter(8);
+        counter.add(stock);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long taken = 0;
+                    int misses = 0;
+                    // Keep going until the stripes are too empty to serve anything
+                    while (misses < 1000) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        if (counter.tryTake(quantity)) {
+                            taken += quantity;
+                        } else {
+                            misses++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+            long taken = 0;
+            for (Future<Long> future : futures) {
+                taken += future.get();
+            }
+            
+            assertThat(taken + counter.remaining()).isEqualTo(stock);
+            // Leftovers are only the odd units no single stripe could serve
+            assertThat(counter.remaining()).isLessThan(8 * 3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    void drainEmptiesEveryStripe() {
+        HotStockCounter counter = new HotStockCounter(4);
+        counter.add(10);
+        counter.giveBack(3);
+        
+        assertThat(counter.drain()).isEqualTo(13);
+        assertThat(counter.remaining()).isZero();
+        assertThat(counter.tryTake(1)).isFalse();
+    }
+}
@@ -0,0 +1,125 @@
+package com.phonecase.inventory.hot;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reservations per second on one hot product from many threads, and overselling, which must stay
+// zero. Each iteration starts with `stock` units in escrow; the `reserved` counter is the rate of
+// reservations that got a unit, `rejected` the rate of those that found the escrow empty.
+//   memory:  the striped counter alone
+//   journal: plus the RESERVE record in the page cache
+//   durable: plus the group-committed force that now runs before the reservation commits
+// An iteration that hands out more units than it was given fails the run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class HotStockReservationBenchmark {
+    
+    private static final long PRODUCT_ID = 1L;
+    
+    @Param({"5000000"})
+    public int stock;
+    
+    private HotStockCounter counter;
+    private ReservationJournal journal;
+    private Path journalPath;
+    private final LongAdder handedOut = new LongAdder();
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long reserved;
+        public long rejected;
+        
+        @Setup(Level.Iteration)
+        public void clear() {
+            reserved = 0;
+            rejected = 0;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void openJournal() throws IOException {
+        journalPath = Files.createTempFile("reservation-journal", ".log");
+        journal = new ReservationJournal(journalPath);
+        counter = new HotStockCounter(Runtime.getRuntime().availableProcessors());
+    }
+    
+    @Setup(Level.Iteration)
+    public void grant() {
+        counter.drain();
+        handedOut.reset();
+        counter.add(stock);
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkOversell() {
+        long oversold = handedOut.sum() + counter.remaining() - stock;
+        System.out.printf("%n%d units handed out of %d, oversold: %d%n", handedOut.sum(), stock, oversold);
+        if (oversold != 0) {
+            throw new IllegalStateException("Oversold " + oversold + " units");
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void closeJournal() throws IOException {
+        journal.close();
+        Files.deleteIfExists(journalPath);
+    }
+    
+    @Benchmark
+    public void memory(Outcome outcome) {
+        if (counter.tryTake(1)) {
+            handedOut.increment();
+            outcome.reserved++;
+        } else {
+            outcome.rejected++;
+        }
+    }
+    
+    @Benchmark
+    public void journal(Outcome outcome) {
+        if (counter.tryTake(1)) {
+            journal.append(ReservationJournal.RESERVE, PRODUCT_ID, 1);
+            handedOut.increment();
+            outcome.reserved++;
+        } else {
+            outcome.rejected++;
+        }
+    }
+    
+    @Benchmark
+    public void durable(Outcome outcome) {
+        if (counter.tryTake(1)) {
+            journal.append(ReservationJournal.RESERVE, PRODUCT_ID, 1);
+            journal.sync();
+            handedOut.increment();
+            outcome.reserved++;
+        } else {
+            outcome.rejected++;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.phonecase.inventory.hot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationJournalTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void countsUnitsNeitherHandedOutNorReturned() throws Exception {
+        Path path = dir.resolve("journal.log");
+        try (ReservationJournal journal = new ReservationJournal(path)) {
+            journal.append(ReservationJournal.GRANT, 1L, 100);
+            journal.append(ReservationJournal.RESERVE, 1L, 30);
+            journal.append(ReservationJournal.UNRESERVE, 1L, 5);
+            journal.append(ReservationJournal.RETURN, 1L, 20);
+            journal.append(ReservationJournal.GRANT, 2L, 10);
+            journal.sync();
+        }
+        try (ReservationJournal reopened = new ReservationJournal(path)) {
+            assertThat(reopened.unusedUnits()).isEqualTo(Map.of(1L, 55L, 2L, 10L));
+        }
+    }
+    
+    @Test
+    void concurrentSyncsKeepEveryRecord() throws Exception {
+        Path path = dir.resolve("journal.log");
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ReservationJournal journal = new ReservationJournal(path)) {
+            journal.append(ReservationJournal.GRANT, 1L, threads * perThread);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(ReservationJournal.RESERVE, 1L, 1);
+                        journal.sync();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertThat(journal.unusedUnits()).isEqualTo(Map.of(1L, 0L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
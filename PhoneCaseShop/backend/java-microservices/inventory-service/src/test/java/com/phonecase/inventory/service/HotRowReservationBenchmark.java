@@ -0,0 +1,176 @@
+package com.phonecase.inventory.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Single-unit reservations on one hot inventory row from 64 threads on H2 in MSSQLServer mode, each
+// thread with its own connection and one transaction per reservation. Each iteration starts with
+// `stock` units and nothing reserved.
+//   conditional: ConditionalStockReservationEngine's UPDATE ... WHERE quantity - reserved_quantity >= ?,
+//                a reservation that updated no row is short
+//   pessimistic: PessimisticStockReservationEngine's path, the row locked with SELECT ... FOR UPDATE,
+//                checked, then updated
+// Each iteration prints how many reservations got a unit and how many found the row short, per
+// second of wall clock from restock to check. With 64 threads queueing on one lock, JMH's per-thread
+// timing leaves out the calls still running when the iteration ends, so those figures are the ones to
+// compare. An iteration that ends with reserved_quantity above quantity, or different from the
+// reservations that committed, fails the run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class HotRowReservationBenchmark {
+    
+    private static final String URL =
+            "jdbc:h2:mem:hot_row_bench;MODE=MSSQLServer;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000;OPTIMIZE_REUSE_RESULTS=FALSE";
+    
+    private static final long PRODUCT_ID = 1L;
+    
+    private static final String CONDITIONAL_RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = GETDATE() " +
+            "WHERE product_id = ? AND quantity - reserved_quantity >= ?";
+    private static final String LOCK_STOCK_SQL =
+            "SELECT quantity, reserved_quantity FROM inventory WHERE product_id = ? FOR UPDATE";
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = GETDATE() WHERE product_id = ?";
+    
+    // 1000 runs out early in every iteration, so most calls race for the last units and are refused;
+    // 100000000 never runs out, so every call waits for the row and reserves
+    @Param({"1000", "100000000"})
+    public int stock;
+    
+    private Connection connection;
+    private final LongAdder handedOut = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private long restockedAt;
+    
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement conditional;
+        PreparedStatement lock;
+        PreparedStatement reserve;
+        
+        // Takes the benchmark state so the table exists before the statements are prepared
+        @Setup(Level.Trial)
+        public void open(HotRowReservationBenchmark benchmark) throws SQLException {
+            connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conditional = connection.prepareStatement(CONDITIONAL_RESERVE_SQL);
+            lock = connection.prepareStatement(LOCK_STOCK_SQL);
+            reserve = connection.prepareStatement(RESERVE_SQL);
+        }
+        
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void createTable() throws SQLException {
+        connection = DriverManager.getConnection(URL);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS inventory");
+            ddl.execute("CREATE TABLE inventory (id BIGINT IDENTITY PRIMARY KEY, product_id BIGINT NOT NULL UNIQUE, " +
+                    "quantity INT NOT NULL, reserved_quantity INT NOT NULL, reorder_level INT, last_updated DATETIME2)");
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void restock() throws SQLException {
+        handedOut.reset();
+        refused.reset();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DELETE FROM inventory");
+            ddl.execute("INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, last_updated) " +
+                    "VALUES (" + PRODUCT_ID + ", " + stock + ", 0, 10, GETDATE())");
+        }
+        restockedAt = System.nanoTime();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkOversell() throws SQLException {
+        double seconds = (System.nanoTime() - restockedAt) / 1e9;
+        try (Statement query = connection.createStatement();
+             ResultSet rs = query.executeQuery("SELECT quantity, reserved_quantity FROM inventory WHERE product_id = " + PRODUCT_ID)) {
+            rs.next();
+            int quantity = rs.getInt(1);
+            int reserved = rs.getInt(2);
+            System.out.printf("%n%d units reserved of %d: %.0f reserved/s, %.0f short/s%n", reserved, quantity,
+                    handedOut.sum() / seconds, refused.sum() / seconds);
+            if (reserved > quantity || reserved != handedOut.sum()) {
+                throw new IllegalStateException("Reserved " + reserved + " of " + quantity + " units for "
+                        + handedOut.sum() + " committed reservations");
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void dropTable() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE inventory");
+        }
+        connection.close();
+    }
+    
+    @Benchmark
+    public void conditional(Session session) throws SQLException {
+        session.conditional.setInt(1, 1);
+        session.conditional.setLong(2, PRODUCT_ID);
+        session.conditional.setInt(3, 1);
+        boolean updated = session.conditional.executeUpdate() == 1;
+        session.connection.commit();
+        count(updated);
+    }
+    
+    @Benchmark
+    public void pessimistic(Session session) throws SQLException {
+        session.lock.setLong(1, PRODUCT_ID);
+        boolean available;
+        try (ResultSet rs = session.lock.executeQuery()) {
+            rs.next();
+            available = rs.getInt(1) - rs.getInt(2) >= 1;
+        }
+        if (available) {
+            session.reserve.setInt(1, 1);
+            session.reserve.setLong(2, PRODUCT_ID);
+            session.reserve.executeUpdate();
+        }
+        session.connection.commit();
+        count(available);
+    }
+    
+    private void count(boolean reserved) {
+        if (reserved) {
+            handedOut.increment();
+        } else {
+            refused.increment();
+        }
+    }
+}
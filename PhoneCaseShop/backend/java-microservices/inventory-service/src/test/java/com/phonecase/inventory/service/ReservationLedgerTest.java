@@ -0,0 +1,60 @@
+package com.phonecase.inventory.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationLedgerTest {
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    
+    private final ReservationLedger ledger = new ReservationLedger();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledger, "jdbcTemplate", jdbcTemplate);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void returnsTheUnitsClosedSplittingTheLastHold() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7L), eq("order-1")))
+                .thenReturn(List.of(new long[] { 11L, 3L }, new long[] { 12L, 2L }));
+        
+        SortedMap<Long, Integer> closed = ledger.close(new TreeMap<>(Map.of(7L, 4)), "order-1", ReservationLedger.CONSUMED);
+        
+        assertThat(closed).containsExactly(Map.entry(7L, 4));
+        verify(jdbcTemplate).update(anyString(), eq(ReservationLedger.CONSUMED), eq(11L));
+        verify(jdbcTemplate).update(anyString(), eq(1), eq(12L));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void closesNothingForAnExpiredHold() {
+        // The sweeper has already marked the hold EXPIRED and released its units
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7L), eq("order-1"))).thenReturn(List.of());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(8L), eq("order-1")))
+                .thenReturn(List.<long[]>of(new long[] { 13L, 1L }));
+        
+        SortedMap<Long, Integer> closed = ledger.close(new TreeMap<>(Map.of(7L, 2, 8L, 3)), "order-1",
+                ReservationLedger.CONSUMED);
+        
+        assertThat(closed).containsExactly(Map.entry(8L, 1));
+        verify(jdbcTemplate).update(anyString(), eq(ReservationLedger.CONSUMED), eq(13L));
+    }
+}
@@ -0,0 +1,242 @@
+package com.phonecase.inventory.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Multi-line carts reserved by many threads at once on H2 in MSSQLServer mode. Every cart holds
+// the same `lines` products; even threads list them in ascending product id order, odd threads in
+// descending order, so two carts always want each other's rows.
+//   single: one lock-then-check-then-update reserve per line in cart order, all in one transaction,
+//           what a caller looping over reserve() inside its own transaction does
+//   batch:  what reserveBatch does, every row locked in ascending product id order, checked, then
+//           updated in one JDBC batch
+// A transaction that hits a deadlock or a lock timeout rolls back and is retried like @Retryable,
+// up to three attempts. The `reserved` counter is the rate of committed carts, `deadlocks`,
+// `timeouts` and `retries` the rate of those failures, `failed` the carts given up after three.
+// An iteration whose reserved_quantity differs from the committed carts fails the run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class StockBatchContentionBenchmark {
+    
+    private static final String URL =
+            "jdbc:h2:mem:stock_batch_bench;MODE=MSSQLServer;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=1000";
+    
+    private static final int MAX_ATTEMPTS = 3;
+    
+    // H2's deadlock and lock timeout error codes
+    private static final int DEADLOCK = 40001;
+    private static final int LOCK_TIMEOUT = 50200;
+    
+    private static final String LOCK_STOCK_SQL =
+            "SELECT quantity, reserved_quantity FROM inventory WHERE product_id = ? FOR UPDATE";
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = GETDATE() WHERE product_id = ?";
+    
+    @Param({"3"})
+    public int lines;
+    
+    private Connection connection;
+    private final AtomicInteger threads = new AtomicInteger();
+    private final LongAdder committed = new LongAdder();
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long reserved;
+        public long deadlocks;
+        public long timeouts;
+        public long retries;
+        public long failed;
+        
+        @Setup(Level.Iteration)
+        public void clear() {
+            reserved = 0;
+            deadlocks = 0;
+            timeouts = 0;
+            retries = 0;
+            failed = 0;
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Cart {
+        long[] cartOrder;
+        long[] idOrder;
+        Connection connection;
+        PreparedStatement lock;
+        PreparedStatement reserve;
+        
+        @Setup(Level.Trial)
+        public void open(StockBatchContentionBenchmark benchmark) throws SQLException {
+            idOrder = new long[benchmark.lines];
+            for (int i = 0; i < idOrder.length; i++) {
+                idOrder[i] = i + 1;
+            }
+            cartOrder = idOrder.clone();
+            if (benchmark.threads.getAndIncrement() % 2 == 1) {
+                for (int i = 0; i < cartOrder.length; i++) {
+                    cartOrder[i] = idOrder[idOrder.length - 1 - i];
+                }
+            }
+            connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            lock = connection.prepareStatement(LOCK_STOCK_SQL);
+            reserve = connection.prepareStatement(RESERVE_SQL);
+        }
+        
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void createTable() throws SQLException {
+        connection = DriverManager.getConnection(URL);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS inventory");
+            ddl.execute("CREATE TABLE inventory (id BIGINT IDENTITY PRIMARY KEY, product_id BIGINT NOT NULL UNIQUE, " +
+                    "quantity INT NOT NULL, reserved_quantity INT NOT NULL, reorder_level INT, last_updated DATETIME2)");
+        }
+    }
+    
+    // Enough stock that no cart is ever short; only lock contention decides the outcome
+    @Setup(Level.Iteration)
+    public void restock() throws SQLException {
+        committed.reset();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DELETE FROM inventory");
+            ddl.execute("INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, last_updated) " +
+                    "SELECT X, 1000000000, 0, 10, GETDATE() FROM SYSTEM_RANGE(1, " + lines + ")");
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkReserved() throws SQLException {
+        try (Statement query = connection.createStatement();
+             ResultSet rs = query.executeQuery("SELECT product_id, reserved_quantity FROM inventory")) {
+            while (rs.next()) {
+                if (rs.getLong(2) != committed.sum()) {
+                    throw new IllegalStateException("Product " + rs.getLong(1) + " reserved " + rs.getLong(2)
+                            + " units for " + committed.sum() + " committed carts");
+                }
+            }
+        }
+        System.out.printf("%n%d carts committed%n", committed.sum());
+    }
+    
+    @TearDown(Level.Trial)
+    public void dropTable() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE inventory");
+        }
+        connection.close();
+    }
+    
+    @Benchmark
+    public void single(Cart cart, Outcome outcome) throws SQLException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                for (long productId : cart.cartOrder) {
+                    if (lockAvailable(cart, productId) < 1) {
+                        throw new IllegalStateException("Product " + productId + " ran out of stock");
+                    }
+                    cart.reserve.setInt(1, 1);
+                    cart.reserve.setLong(2, productId);
+                    cart.reserve.executeUpdate();
+                }
+                commit(cart, outcome);
+                return;
+            } catch (SQLException e) {
+                retryOrFail(cart, outcome, e, attempt);
+            }
+        }
+    }
+    
+    @Benchmark
+    public void batch(Cart cart, Outcome outcome) throws SQLException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                int[] available = new int[cart.idOrder.length];
+                for (int i = 0; i < cart.idOrder.length; i++) {
+                    available[i] = lockAvailable(cart, cart.idOrder[i]);
+                }
+                if (Arrays.stream(available).anyMatch(units -> units < 1)) {
+                    throw new IllegalStateException("A product ran out of stock");
+                }
+                for (long productId : cart.idOrder) {
+                    cart.reserve.setInt(1, 1);
+                    cart.reserve.setLong(2, productId);
+                    cart.reserve.addBatch();
+                }
+                cart.reserve.executeBatch();
+                commit(cart, outcome);
+                return;
+            } catch (SQLException e) {
+                retryOrFail(cart, outcome, e, attempt);
+            }
+        }
+    }
+    
+    private static int lockAvailable(Cart cart, long productId) throws SQLException {
+        cart.lock.setLong(1, productId);
+        try (ResultSet rs = cart.lock.executeQuery()) {
+            rs.next();
+            return rs.getInt(1) - rs.getInt(2);
+        }
+    }
+    
+    private void commit(Cart cart, Outcome outcome) throws SQLException {
+        cart.connection.commit();
+        committed.increment();
+        outcome.reserved++;
+    }
+    
+    // Rolls back a transaction that lost a lock and counts why; anything else fails the run
+    private static void retryOrFail(Cart cart, Outcome outcome, SQLException e, int attempt) throws SQLException {
+        cart.reserve.clearBatch();
+        cart.connection.rollback();
+        if (e.getErrorCode() == DEADLOCK) {
+            outcome.deadlocks++;
+        } else if (e.getErrorCode() == LOCK_TIMEOUT) {
+            outcome.timeouts++;
+        } else {
+            throw e;
+        }
+        if (attempt < MAX_ATTEMPTS) {
+            outcome.retries++;
+        } else {
+            outcome.failed++;
+        }
+    }
+}
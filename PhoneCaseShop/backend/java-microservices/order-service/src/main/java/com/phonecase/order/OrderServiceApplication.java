@@ -5,9 +5,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.phonecase.order", "com.phonecase.common"})
 @EnableDiscoveryClient
+@EnableScheduling
 @EntityScan("com.phonecase.order.entity")
 @EnableJpaRepositories("com.phonecase.order.repository")
 public class OrderServiceApplication {
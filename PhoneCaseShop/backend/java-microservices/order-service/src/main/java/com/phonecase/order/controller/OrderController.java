@@ -1,11 +1,16 @@
 package com.phonecase.order.controller;
 
 import com.phonecase.order.dto.OrderDTO;
+import com.phonecase.order.dto.OrderPageDTO;
 import com.phonecase.order.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,9 +65,23 @@ public class OrderController {
     }
     
     @GetMapping("/admin/orders")
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        List<OrderDTO> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<StreamingResponseBody> getAllOrders() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderService.streamAllOrders());
+    }
+    
+    @GetMapping("/admin/orders/page")
+    public ResponseEntity<OrderPageDTO> getOrdersPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "paymentStatus", required = false) String paymentStatus,
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderPageDTO page = orderService.getOrdersPage(cursor, limit, status, paymentStatus, userId, from, to);
+        return ResponseEntity.ok(page);
     }
     
     @GetMapping("/admin/orders/status/{status}")
@@ -0,0 +1,17 @@
+package com.phonecase.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDTO {
+    private List<OrderDTO> items;
+    // Opaque cursor for the next page, null when there are no more orders
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,67 @@
+package com.phonecase.order.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonecase.common.event.OrderEvent;
+import com.phonecase.order.entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Writes order events to the order_outbox table in the caller's transaction, so an event exists
+// if and only if the order change that caused it was committed. OrderOutboxRelay delivers them.
+@Component
+public class OrderOutbox {
+    
+    static final String INVENTORY_SERVICE = "inventory-service";
+    static final String PAYMENT_SERVICE = "payment-service";
+    
+    // Services that receive each event type; one outbox row is written per receiver
+    private static final Map<String, List<String>> DESTINATIONS = Map.of(
+            OrderEvent.ORDER_CREATED, List.of(INVENTORY_SERVICE, PAYMENT_SERVICE),
+            OrderEvent.ORDER_SHIPPED, List.of(INVENTORY_SERVICE),
+            OrderEvent.ORDER_DELIVERED, List.of(INVENTORY_SERVICE),
+            OrderEvent.ORDER_CANCELLED, List.of(INVENTORY_SERVICE, PAYMENT_SERVICE),
+            OrderEvent.ORDER_RETURNED, List.of(INVENTORY_SERVICE, PAYMENT_SERVICE)
+    );
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO order_outbox (order_id, event_type, destination, payload) VALUES (?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String type, Order order, List<OrderEvent.Item> items) {
+        List<String> destinations = DESTINATIONS.get(type);
+        if (destinations == null) {
+            throw new IllegalArgumentException("Unknown order event type: " + type);
+        }
+        
+        // eventId is filled in from the row id when the event is relayed
+        OrderEvent event = new OrderEvent(null, type, order.getId(), order.getOrderNumber(), order.getUserId(),
+                order.getTotalAmount(), order.getPaymentMethod(), items, LocalDateTime.now());
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order event", e);
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_SQL, destinations, destinations.size(), (ps, destination) -> {
+            ps.setLong(1, order.getId());
+            ps.setString(2, type);
+            ps.setString(3, destination);
+            ps.setString(4, payload);
+        });
+    }
+}
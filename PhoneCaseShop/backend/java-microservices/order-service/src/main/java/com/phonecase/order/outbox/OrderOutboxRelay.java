@@ -0,0 +1,190 @@
+package com.phonecase.order.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonecase.common.event.OrderEvent;
+import com.phonecase.common.event.OrderEventResult;
+import com.phonecase.common.security.InternalIdentitySigner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Delivers outbox rows to their receiving services in batches, off the request path. Rows are claimed
+// with a lease, so several order-service instances can relay at once, and a crashed relay's rows are
+// picked up again once the lease runs out. Delivery is at-least-once; receivers drop duplicates by eventId.
+@Component
+public class OrderOutboxRelay {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+    
+    static final String EVENTS_PATH = "/internal/order-events";
+    
+    // Oldest deliverable rows first. A row waits while an earlier row for the same order and receiver
+    // is still pending, so each receiver sees an order's events in the order they happened.
+    private static final String CLAIM_SQL =
+            "WITH next AS (" +
+            " SELECT TOP (?) * FROM order_outbox o WITH (UPDLOCK, READPAST, ROWLOCK)" +
+            " WHERE o.published_at IS NULL" +
+            " AND (o.locked_until IS NULL OR o.locked_until < SYSUTCDATETIME())" +
+            " AND NOT EXISTS (SELECT 1 FROM order_outbox p WHERE p.order_id = o.order_id" +
+            " AND p.destination = o.destination AND p.published_at IS NULL AND p.id < o.id)" +
+            " ORDER BY o.id)" +
+            " UPDATE next SET locked_until = DATEADD(SECOND, ?, SYSUTCDATETIME()), attempts = attempts + 1" +
+            " OUTPUT inserted.id, inserted.destination, inserted.payload, inserted.attempts";
+    
+    private static final String PUBLISHED_SQL =
+            "UPDATE order_outbox SET published_at = SYSUTCDATETIME(), locked_until = NULL, last_error = ? WHERE id = ?";
+    
+    private static final String RETRY_SQL =
+            "UPDATE order_outbox SET locked_until = DATEADD(SECOND, ?, SYSUTCDATETIME()), last_error = ? WHERE id = ?";
+    
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, rowNum) ->
+            new OutboxRow(rs.getLong("id"), rs.getString("destination"), rs.getString("payload"), rs.getInt("attempts"));
+    
+    @Value("${order.outbox.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${order.outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${order.outbox.lease-seconds:30}")
+    private int leaseSeconds;
+    
+    @Value("${order.outbox.max-backoff-seconds:300}")
+    private int maxBackoffSeconds;
+    
+    @Value("${spring.application.name:order-service}")
+    private String applicationName;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private RestTemplate loadBalancedRestTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private InternalIdentitySigner internalIdentitySigner;
+    
+    @Scheduled(initialDelayString = "${order.outbox.initial-delay-ms:10000}",
+               fixedDelayString = "${order.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        List<OutboxRow> rows;
+        do {
+            rows = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, batchSize, leaseSeconds);
+            Map<String, List<OutboxRow>> byDestination = new LinkedHashMap<>();
+            for (OutboxRow row : rows) {
+                byDestination.computeIfAbsent(row.destination, d -> new ArrayList<>()).add(row);
+            }
+            byDestination.forEach(this::deliver);
+        } while (rows.size() == batchSize);
+    }
+    
+    private void deliver(String destination, List<OutboxRow> rows) {
+        List<OrderEvent> events = new ArrayList<>(rows.size());
+        List<OutboxRow> sent = new ArrayList<>(rows.size());
+        for (OutboxRow row : rows) {
+            try {
+                OrderEvent event = objectMapper.readValue(row.payload, OrderEvent.class);
+                event.setEventId(row.id);
+                events.add(event);
+                sent.add(row);
+            } catch (Exception e) {
+                // Retrying cannot fix an unreadable payload; park it with the error for inspection
+                jdbcTemplate.update(PUBLISHED_SQL, truncate("Unreadable payload: " + e.getMessage()), row.id);
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        
+        OrderEventResult[] results;
+        try {
+            results = loadBalancedRestTemplate.postForObject("http://" + destination + EVENTS_PATH,
+                    new HttpEntity<>(events, systemHeaders()), OrderEventResult[].class);
+        } catch (RestClientException e) {
+            log.warn("Delivering {} order events to {} failed: {}", events.size(), destination, e.getMessage());
+            for (OutboxRow row : sent) {
+                retryLater(row, e.getMessage());
+            }
+            return;
+        }
+        
+        Map<Long, OrderEventResult> resultsById = new HashMap<>();
+        if (results != null) {
+            for (OrderEventResult result : results) {
+                resultsById.put(result.getEventId(), result);
+            }
+        }
+        for (OutboxRow row : sent) {
+            OrderEventResult result = resultsById.get(row.id);
+            if (result == null) {
+                retryLater(row, "No result returned by " + destination);
+            } else if (OrderEventResult.REJECTED.equals(result.getStatus())) {
+                log.warn("{} rejected order event {}: {}", destination, row.id, result.getMessage());
+                jdbcTemplate.update(PUBLISHED_SQL, truncate("Rejected: " + result.getMessage()), row.id);
+            } else {
+                jdbcTemplate.update(PUBLISHED_SQL, null, row.id);
+            }
+        }
+    }
+    
+    private void retryLater(OutboxRow row, String error) {
+        // Exponential backoff: 2s, 4s, 8s ... capped at max-backoff-seconds
+        int backoff = (int) Math.min(maxBackoffSeconds, 1L << Math.min(row.attempts, 20));
+        jdbcTemplate.update(RETRY_SQL, backoff, truncate(error), row.id);
+    }
+    
+    private HttpHeaders systemHeaders() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String role = InternalIdentitySigner.SYSTEM_ROLE;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(InternalIdentitySigner.USER_EMAIL_HEADER, applicationName);
+        headers.set(InternalIdentitySigner.USER_ROLE_HEADER, role);
+        headers.set(InternalIdentitySigner.EXPIRES_HEADER, Long.toString(expiresAt));
+        headers.set(InternalIdentitySigner.SIGNATURE_HEADER, internalIdentitySigner.sign(applicationName, role, expiresAt));
+        return headers;
+    }
+    
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+    
+    private static final class OutboxRow {
+        private final long id;
+        private final String destination;
+        private final String payload;
+        private final int attempts;
+        
+        private OutboxRow(long id, String destination, String payload, int attempts) {
+            this.id = id;
+            this.destination = destination;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+    }
+}
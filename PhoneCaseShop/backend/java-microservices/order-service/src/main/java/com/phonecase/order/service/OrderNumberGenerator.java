@@ -0,0 +1,166 @@
+package com.phonecase.order.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style order numbers: 41 bits of milliseconds since EPOCH, 10 bits of node id and a
+// 12-bit per-millisecond sequence. Numbers are unique without a database lookup as long as every
+// order-service instance runs with a distinct node id. Without an explicit node id, an instance
+// leases one from order_number_nodes and renews it; it stops issuing numbers if the lease lapses,
+// since another instance may then take over the id.
+@Component
+public class OrderNumberGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+    public static final String PREFIX = "ORD";
+
+    // 2024-01-01T00:00:00Z, leaves room for ~69 years of timestamps
+    static final long EPOCH = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Least recently used free or expired id first, so a crashed instance's id is reused last
+    private static final String CLAIM_SQL =
+            "WITH next AS (" +
+            " SELECT TOP (1) * FROM order_number_nodes WITH (UPDLOCK, READPAST, ROWLOCK)" +
+            " WHERE lease_expires_at IS NULL OR lease_expires_at < SYSUTCDATETIME()" +
+            " ORDER BY lease_expires_at, node_id)" +
+            " UPDATE next SET instance_id = ?, lease_expires_at = DATEADD(SECOND, ?, SYSUTCDATETIME())" +
+            " OUTPUT inserted.node_id";
+
+    private static final String RENEW_SQL =
+            "UPDATE order_number_nodes SET lease_expires_at = DATEADD(SECOND, ?, SYSUTCDATETIME()) " +
+            "WHERE node_id = ? AND instance_id = ? AND lease_expires_at >= SYSUTCDATETIME()";
+
+    // -1 leases a node id from the database
+    @Value("${order.number.node-id:-1}")
+    private long configuredNodeId;
+
+    @Value("${order.number.lease-seconds:60}")
+    private int leaseSeconds;
+
+    @Value("${server.port:8086}")
+    private int serverPort;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile long nodeId;
+
+    private String instanceId;
+
+    // System.nanoTime() after which the leased node id may belong to another instance
+    private volatile long leaseValidUntil;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId > MAX_NODE_ID) {
+                throw new IllegalStateException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+            }
+            nodeId = configuredNodeId;
+        } else {
+            instanceId = instanceId();
+            if (!claimLease()) {
+                throw new IllegalStateException("No free order number node id in order_number_nodes; "
+                        + "set order.number.node-id or wait for a stale lease to expire");
+            }
+            log.info("Leased order number node id {} as {}", nodeId, instanceId);
+        }
+    }
+
+    // Renews well before expiry; a lost lease is replaced by a fresh one
+    @Scheduled(initialDelayString = "${order.number.renew-interval-ms:20000}",
+               fixedDelayString = "${order.number.renew-interval-ms:20000}")
+    public void renewLease() {
+        if (instanceId == null) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            if (jdbcTemplate.update(RENEW_SQL, leaseSeconds, nodeId, instanceId) == 1) {
+                leaseValidUntil = started + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                return;
+            }
+            log.warn("Lease on order number node id {} was lost, leasing a new one", nodeId);
+            leaseValidUntil = 0;
+            if (!claimLease()) {
+                log.error("No free order number node id, order numbers are unavailable until one frees up");
+            }
+        } catch (Exception e) {
+            // Numbers keep being issued until the current lease runs out
+            log.error("Could not renew the order number node lease: {}", e.getMessage());
+        }
+    }
+
+    public String next() {
+        if (instanceId != null && System.nanoTime() - leaseValidUntil > 0) {
+            throw new IllegalStateException("Order number node lease expired");
+        }
+        return PREFIX + nextId();
+    }
+
+    long nextId() {
+        while (true) {
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock moved backwards: keep counting on the last timestamp
+                next = last + 1;
+            } else {
+                // Sequence exhausted, borrow the next millisecond instead of waiting for it
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private boolean claimLease() {
+        long started = System.nanoTime();
+        List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, instanceId, leaseSeconds);
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        nodeId = claimed.get(0);
+        leaseValidUntil = started + TimeUnit.SECONDS.toNanos(leaseSeconds);
+        return true;
+    }
+
+    private String instanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        String id = host + ":" + serverPort + "/" + UUID.randomUUID();
+        return id.length() > 100 ? id.substring(id.length() - 100) : id;
+    }
+}
@@ -2,20 +2,33 @@ package com.phonecase.order.service;
 
 import com.phonecase.order.dto.OrderDTO;
 import com.phonecase.order.dto.OrderItemDTO;
+import com.phonecase.order.dto.OrderPageDTO;
 import com.phonecase.order.entity.Order;
 import com.phonecase.order.entity.OrderItem;
+import com.phonecase.order.outbox.OrderOutbox;
 import com.phonecase.order.repository.OrderItemRepository;
 import com.phonecase.order.repository.OrderRepository;
+import com.phonecase.common.event.OrderEvent;
 import com.phonecase.common.exception.BadRequestException;
 import com.phonecase.common.exception.ConflictException;
 import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.common.streaming.JsonArrayStreamer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.sql.Types;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -33,12 +46,62 @@ public class OrderService {
     private static final Set<String> PROCESSING_TRANSITIONS = Set.of("SHIPPED", "CANCELLED", "DELIVERED");
     private static final Set<String> SHIPPED_TRANSITIONS = Set.of("DELIVERED", "RETURNED");
     
+    private static final int STREAM_BATCH_SIZE = 500;
+    
+    // SQL Server accepts at most 2100 parameters per statement, so IN lists are split
+    private static final int ITEM_QUERY_CHUNK_SIZE = 1000;
+    
+    private static final String ORDER_COLUMNS =
+            "id, order_number, user_id, status, total_amount, shipping_address, shipping_phone, " +
+            "payment_method, payment_status, shipping_date, delivery_date, cancellation_reason, return_reason, " +
+            "created_at, updated_at";
+    
+    private static final String ALL_ORDERS_SQL = "SELECT " + ORDER_COLUMNS + " FROM orders ORDER BY id";
+    
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, design_id, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private static final RowMapper<Order> ORDER_ROW_MAPPER = (rs, rowNum) -> {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setOrderNumber(rs.getString("order_number"));
+        order.setUserId(rs.getLong("user_id"));
+        order.setStatus(rs.getString("status"));
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setShippingAddress(rs.getString("shipping_address"));
+        order.setShippingPhone(rs.getString("shipping_phone"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        order.setPaymentStatus(rs.getString("payment_status"));
+        order.setShippingDate(rs.getObject("shipping_date", LocalDateTime.class));
+        order.setDeliveryDate(rs.getObject("delivery_date", LocalDateTime.class));
+        order.setCancellationReason(rs.getString("cancellation_reason"));
+        order.setReturnReason(rs.getString("return_reason"));
+        order.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        order.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return order;
+    };
+    
     @Autowired
     private OrderRepository orderRepository;
     
     @Autowired
     private OrderItemRepository orderItemRepository;
     
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+    
+    @Autowired
+    private OrderOutbox orderOutbox;
+    
     @Transactional
     public OrderDTO createOrder(OrderDTO orderDTO) {
         // Validate order data
@@ -58,8 +121,20 @@ public class OrderService {
             throw new BadRequestException("Shipping phone is required");
         }
         
-        // Generate unique order number
-        String orderNumber = generateUniqueOrderNumber();
+        // Validate all items up front so nothing is written for an invalid order
+        for (OrderItemDTO itemDTO : orderDTO.getItems()) {
+            if (itemDTO.getProductId() == null && itemDTO.getDesignId() == null) {
+                throw new BadRequestException("Order item must have either product ID or design ID");
+            }
+            if (itemDTO.getQuantity() == null || itemDTO.getQuantity() <= 0) {
+                throw new BadRequestException("Order item quantity must be greater than 0");
+            }
+            if (itemDTO.getPrice() == null || itemDTO.getPrice().compareTo(java.math.BigDecimal.ZERO) < 0) {
+                throw new BadRequestException("Order item price must not be negative");
+            }
+        }
+        
+        String orderNumber = orderNumberGenerator.next();
         
         try {
             Order order = convertToEntity(orderDTO);
@@ -68,48 +143,40 @@ public class OrderService {
             order.setPaymentStatus("PENDING");
             order = orderRepository.save(order);
             
-            // Save order items
+            // Save order items with one JDBC batch in the same transaction. IDENTITY ids keep
+            // Hibernate from batching, which cost one round-trip per item.
+            List<OrderItem> items = new ArrayList<>(orderDTO.getItems().size());
             for (OrderItemDTO itemDTO : orderDTO.getItems()) {
-                if (itemDTO.getProductId() == null && itemDTO.getDesignId() == null) {
-                    throw new BadRequestException("Order item must have either product ID or design ID");
-                }
-                if (itemDTO.getQuantity() == null || itemDTO.getQuantity() <= 0) {
-                    throw new BadRequestException("Order item quantity must be greater than 0");
-                }
-                
-                OrderItem item = new OrderItem();
-                item.setOrderId(order.getId());
-                item.setProductId(itemDTO.getProductId());
-                item.setDesignId(itemDTO.getDesignId());
-                item.setQuantity(itemDTO.getQuantity());
-                item.setPrice(itemDTO.getPrice());
-                item.setSubtotal(itemDTO.getPrice().multiply(java.math.BigDecimal.valueOf(itemDTO.getQuantity())));
-                orderItemRepository.save(item);
+                items.add(new OrderItem(null, order.getId(), itemDTO.getProductId(), itemDTO.getDesignId(),
+                        itemDTO.getQuantity(), itemDTO.getPrice(),
+                        itemDTO.getPrice().multiply(java.math.BigDecimal.valueOf(itemDTO.getQuantity()))));
             }
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, items.size(), (ps, item) -> {
+                ps.setLong(1, item.getOrderId());
+                ps.setObject(2, item.getProductId(), Types.BIGINT);
+                ps.setObject(3, item.getDesignId(), Types.BIGINT);
+                ps.setInt(4, item.getQuantity());
+                ps.setBigDecimal(5, item.getPrice());
+                ps.setBigDecimal(6, item.getSubtotal());
+            });
             
-            return convertToDTO(order);
-        } catch (DataIntegrityViolationException e) {
-            if (e.getMessage().contains("UNIQUE") || e.getMessage().contains("order_number")) {
-                // Retry with new order number if duplicate
-                return createOrder(orderDTO);
+            // Stock reservation and the payment record are created asynchronously from this event
+            List<OrderEvent.Item> eventItems = new ArrayList<>(items.size());
+            for (OrderItem item : items) {
+                eventItems.add(new OrderEvent.Item(item.getProductId(), item.getDesignId(), item.getQuantity()));
             }
+            orderOutbox.enqueue(OrderEvent.ORDER_CREATED, order, eventItems);
+            
+            // Built from what was just written instead of reading it back; the batch does not
+            // return the item ids, so they are left out
+            return convertToDTO(order, items);
+        } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Failed to create order: " + e.getMessage());
         }
     }
     
-    private String generateUniqueOrderNumber() {
-        String baseNumber = "ORD" + System.currentTimeMillis();
-        // Check if exists, if yes, add random suffix
-        if (orderRepository.findByOrderNumber(baseNumber).isPresent()) {
-            baseNumber += "-" + (int)(Math.random() * 1000);
-        }
-        return baseNumber;
-    }
-    
     public List<OrderDTO> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByUserId(userId));
     }
     
     public OrderDTO getOrderById(Long id) {
@@ -127,40 +194,99 @@ public class OrderService {
         return convertToDTO(order);
     }
     
-    public List<OrderDTO> getAllOrders() {
+    // Streams all orders from the result set; items are attached one batch of orders at a time
+    public StreamingResponseBody streamAllOrders() {
+        return jsonArrayStreamer.streamInBatches(ALL_ORDERS_SQL, ORDER_ROW_MAPPER, STREAM_BATCH_SIZE,
+                this::convertBatchToDTO);
+    }
+    
+    private List<OrderDTO> convertBatchToDTO(List<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId;
         try {
-            List<Order> orders = orderRepository.findAll();
-            if (orders == null || orders.isEmpty()) {
-                return new java.util.ArrayList<>();
-            }
-            return orders.stream()
-                    .map(order -> {
-                        try {
-                            return convertToDTO(order);
-                        } catch (Exception e) {
-                            // Log error for individual order conversion
-                            // Return a minimal DTO if conversion fails
-                            OrderDTO dto = new OrderDTO();
-                            dto.setId(order.getId());
-                            dto.setOrderNumber(order.getOrderNumber());
-                            dto.setUserId(order.getUserId());
-                            dto.setStatus(order.getStatus());
-                            dto.setTotalAmount(order.getTotalAmount());
-                            dto.setItems(new java.util.ArrayList<>());
-                            return dto;
-                        }
-                    })
-                    .collect(Collectors.toList());
+            itemsByOrderId = loadItems(orders);
         } catch (Exception e) {
-            // Log error and return empty list
-            return new java.util.ArrayList<>();
+            // Still list the orders, without items, if the items cannot be loaded
+            itemsByOrderId = Collections.emptyMap();
+        }
+        List<OrderDTO> dtos = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            dtos.add(convertToDTO(order, itemsByOrderId.getOrDefault(order.getId(), Collections.emptyList())));
         }
+        return dtos;
+    }
+    
+    // Keyset pagination over (created_at DESC, id DESC): each page seeks from the last row of the
+    // previous one using IX_orders_created_at, so the cost does not grow with the page number
+    public OrderPageDTO getOrdersPage(String cursor, Integer limit, String status, String paymentStatus,
+                                      Long userId, LocalDate from, LocalDate to) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT TOP (?) ").append(ORDER_COLUMNS).append(" FROM orders WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        // One extra row tells whether another page exists
+        params.add(pageSize + 1);
+        
+        if (status != null && !status.trim().isEmpty()) {
+            String normalized = status.trim().toUpperCase();
+            if (!VALID_STATUSES.contains(normalized)) {
+                throw new BadRequestException("Invalid order status: " + status + ". Valid statuses: " + VALID_STATUSES);
+            }
+            sql.append(" AND status = ?");
+            params.add(normalized);
+        }
+        if (paymentStatus != null && !paymentStatus.trim().isEmpty()) {
+            sql.append(" AND payment_status = ?");
+            params.add(paymentStatus.trim().toUpperCase());
+        }
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+            params.add(userId);
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            params.add(from.atStartOfDay());
+        }
+        if (to != null) {
+            // Inclusive end date, expressed as a half-open range so the index can be used
+            sql.append(" AND created_at < ?");
+            params.add(to.plusDays(1).atStartOfDay());
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            OrderCursor position = OrderCursor.decode(cursor);
+            // NULL created_at sorts after every timestamp in DESC order, so those rows come last
+            if (position.getCreatedAt() == null) {
+                sql.append(" AND created_at IS NULL AND id < ?");
+            } else {
+                sql.append(" AND (created_at < ? OR (created_at = ? AND id < ?) OR created_at IS NULL)");
+                params.add(position.getCreatedAt());
+                params.add(position.getCreatedAt());
+            }
+            params.add(position.getId());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        
+        List<Order> orders = jdbcTemplate.query(sql.toString(), ORDER_ROW_MAPPER, params.toArray());
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new OrderPageDTO(convertToDTOs(orders), nextCursor, hasMore);
     }
     
     public List<OrderDTO> getOrdersByStatus(String status) {
-        return orderRepository.findByStatus(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByStatus(status));
     }
     
     @Transactional
@@ -185,6 +311,7 @@ public class OrderService {
         validateStatusTransition(order.getStatus(), status);
         
         // Update status and related fields
+        String previousStatus = order.getStatus();
         order.setStatus(status);
         
         if ("CANCELLED".equals(status)) {
@@ -207,9 +334,37 @@ public class OrderService {
         }
         
         order = orderRepository.save(order);
+        
+        String eventType = stockEventType(previousStatus, status);
+        if (eventType != null) {
+            List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+            List<OrderEvent.Item> eventItems = new ArrayList<>(items.size());
+            for (OrderItem item : items) {
+                eventItems.add(new OrderEvent.Item(item.getProductId(), item.getDesignId(), item.getQuantity()));
+            }
+            orderOutbox.enqueue(eventType, order, eventItems);
+            return convertToDTO(order, items);
+        }
         return convertToDTO(order);
     }
     
+    // Every transition that ends the order's stock hold publishes an event: leaving the warehouse
+    // (shipped, or delivered without being marked shipped) or ending without it (cancelled, returned)
+    private static String stockEventType(String previousStatus, String status) {
+        switch (status) {
+            case "SHIPPED":
+                return OrderEvent.ORDER_SHIPPED;
+            case "DELIVERED":
+                return "SHIPPED".equals(previousStatus) ? null : OrderEvent.ORDER_DELIVERED;
+            case "CANCELLED":
+                return OrderEvent.ORDER_CANCELLED;
+            case "RETURNED":
+                return OrderEvent.ORDER_RETURNED;
+            default:
+                return null;
+        }
+    }
+    
     private void validateStatusTransition(String currentStatus, String newStatus) {
         Set<String> allowedTransitions;
         
@@ -253,7 +408,45 @@ public class OrderService {
         return updateOrderStatus(id, "RETURNED", reason);
     }
     
+    // Converts a list of orders with one items query per chunk of orders instead of one per order
+    private List<OrderDTO> convertToDTOs(List<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId = loadItems(orders);
+        List<OrderDTO> dtos = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            dtos.add(convertToDTO(order, itemsByOrderId.getOrDefault(order.getId(), Collections.emptyList())));
+        }
+        return dtos;
+    }
+    
+    private Map<Long, List<OrderItem>> loadItems(List<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        if (orders.isEmpty()) {
+            return itemsByOrderId;
+        }
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        for (int from = 0; from < orderIds.size(); from += ITEM_QUERY_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + ITEM_QUERY_CHUNK_SIZE, orderIds.size()));
+            for (OrderItem item : orderItemRepository.findByOrderIdIn(chunk)) {
+                itemsByOrderId.computeIfAbsent(item.getOrderId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return itemsByOrderId;
+    }
+    
     private OrderDTO convertToDTO(Order order) {
+        List<OrderItem> items;
+        try {
+            items = orderItemRepository.findByOrderId(order.getId());
+        } catch (Exception e) {
+            items = null;
+        }
+        return convertToDTO(order, items);
+    }
+    
+    private OrderDTO convertToDTO(Order order, List<OrderItem> items) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setOrderNumber(order.getOrderNumber());
@@ -271,14 +464,9 @@ public class OrderService {
         dto.setCreatedAt(order.getCreatedAt());
         dto.setUpdatedAt(order.getUpdatedAt());
         
-        try {
-            List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
-            if (items != null) {
-                dto.setItems(items.stream().map(this::convertItemToDTO).collect(Collectors.toList()));
-            } else {
-                dto.setItems(new java.util.ArrayList<>());
-            }
-        } catch (Exception e) {
+        if (items != null) {
+            dto.setItems(items.stream().map(this::convertItemToDTO).collect(Collectors.toList()));
+        } else {
             dto.setItems(new java.util.ArrayList<>());
         }
         
@@ -0,0 +1,35 @@
+package com.phonecase.order.service;
+
+import com.phonecase.common.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+    
+    @Test
+    void roundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000);
+        OrderCursor cursor = OrderCursor.decode(new OrderCursor(createdAt, 42L).encode());
+        
+        assertThat(cursor.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+    
+    @Test
+    void roundTripsNullCreatedAt() {
+        OrderCursor cursor = OrderCursor.decode(new OrderCursor(null, 7L).encode());
+        
+        assertThat(cursor.getCreatedAt()).isNull();
+        assertThat(cursor.getId()).isEqualTo(7L);
+    }
+    
+    @Test
+    void rejectsGarbage() {
+        assertThatThrownBy(() -> OrderCursor.decode("not a cursor")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> OrderCursor.decode("fHg")).isInstanceOf(BadRequestException.class);
+    }
+}
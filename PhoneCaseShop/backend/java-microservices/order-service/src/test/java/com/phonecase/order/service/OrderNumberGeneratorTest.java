@@ -0,0 +1,130 @@
+package com.phonecase.order.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderNumberGeneratorTest {
+    
+    private static final int THREADS = 16;
+    private static final int NUMBERS = 100_000;
+    
+    @Test
+    void issuesNoDuplicatesAcrossThreads() throws Exception {
+        Set<String> numbers = generateConcurrently(List.of(generator(7)), NUMBERS);
+        
+        assertThat(numbers).hasSize(NUMBERS);
+    }
+    
+    @Test
+    void nodesNeverCollide() throws Exception {
+        Set<String> numbers = generateConcurrently(List.of(generator(1), generator(2)), NUMBERS);
+        
+        assertThat(numbers).hasSize(NUMBERS);
+    }
+    
+    @Test
+    void numbersIncreasePerNode() {
+        OrderNumberGenerator generator = generator(3);
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat((id >>> OrderNumberGenerator.SEQUENCE_BITS) & OrderNumberGenerator.MAX_NODE_ID).isEqualTo(3);
+            previous = id;
+        }
+    }
+    
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        assertThatThrownBy(() -> generator(OrderNumberGenerator.MAX_NODE_ID + 1)).isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void leasesNodeIdWhenNoneIsConfigured() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of(42L));
+        OrderNumberGenerator generator = leasing(jdbcTemplate);
+        
+        long id = generator.nextId();
+        assertThat((id >>> OrderNumberGenerator.SEQUENCE_BITS) & OrderNumberGenerator.MAX_NODE_ID).isEqualTo(42);
+    }
+    
+    @Test
+    void failsStartupWithoutAFreeNodeId() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of());
+        
+        assertThatThrownBy(() -> leasing(jdbcTemplate)).isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void stopsIssuingWhenTheLeaseRunsOut() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of(42L));
+        OrderNumberGenerator generator = leasing(jdbcTemplate);
+        assertThat(generator.next()).startsWith(OrderNumberGenerator.PREFIX);
+        
+        ReflectionTestUtils.setField(generator, "leaseValidUntil", System.nanoTime() - 1);
+        assertThatThrownBy(generator::next).isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static Set<String> generateConcurrently(List<OrderNumberGenerator> generators, int count) throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                OrderNumberGenerator generator = generators.get(t % generators.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < count / THREADS; i++) {
+                        numbers.add(generator.next());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return numbers;
+    }
+    
+    private static OrderNumberGenerator generator(long nodeId) {
+        OrderNumberGenerator generator = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", nodeId);
+        ReflectionTestUtils.invokeMethod(generator, "init");
+        return generator;
+    }
+    
+    private static OrderNumberGenerator leasing(JdbcTemplate jdbcTemplate) {
+        OrderNumberGenerator generator = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", -1L);
+        ReflectionTestUtils.setField(generator, "leaseSeconds", 60);
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.invokeMethod(generator, "init");
+        return generator;
+    }
+}
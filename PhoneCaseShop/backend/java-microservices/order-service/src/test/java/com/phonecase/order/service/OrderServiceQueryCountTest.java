@@ -0,0 +1,140 @@
+package com.phonecase.order.service;
+
+import com.phonecase.order.dto.OrderDTO;
+import com.phonecase.order.dto.OrderItemDTO;
+import com.phonecase.order.entity.Order;
+import com.phonecase.order.entity.OrderItem;
+import com.phonecase.order.outbox.OrderOutbox;
+import com.phonecase.order.repository.OrderItemRepository;
+import com.phonecase.order.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Order lists must load their items with one query per chunk of orders, not one per order
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class OrderServiceQueryCountTest {
+    
+    private static final int ORDERS = 50;
+    private static final int ITEMS_PER_ORDER = 3;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private OrderService orderService;
+    private Statistics statistics;
+    
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setUserId(i % 2 == 0 ? 1L : 2L);
+            order.setStatus(i % 2 == 0 ? "PENDING" : "SHIPPED");
+            order.setTotalAmount(new BigDecimal("30.00"));
+            order.setShippingAddress("1 Test Street");
+            order.setShippingPhone("0900000000");
+            order.setPaymentMethod("COD");
+            order.setOrderNumber("ORD-TEST-" + i);
+            order = orderRepository.save(order);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                orderItemRepository.save(new OrderItem(null, order.getId(), 100L + j, null, 1,
+                        new BigDecimal("10.00"), new BigDecimal("10.00")));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "orderItemRepository", orderItemRepository);
+        ReflectionTestUtils.setField(orderService, "jdbcTemplate", jdbcTemplate);
+        
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void ordersOfAUserTakeTwoQueries() {
+        List<OrderDTO> orders = orderService.getOrdersByUserId(1L);
+        
+        assertThat(orders).hasSize(ORDERS / 2);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+        // One for the orders, one for all of their items
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void ordersByStatusTakeTwoQueries() {
+        List<OrderDTO> orders = orderService.getOrdersByStatus("SHIPPED");
+        
+        assertThat(orders).hasSize(ORDERS / 2);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void singleOrderTakesTwoQueries() {
+        Long id = orderRepository.findByOrderNumber("ORD-TEST-0").orElseThrow().getId();
+        entityManager.clear();
+        statistics.clear();
+        
+        OrderDTO order = orderService.getOrderById(id);
+        
+        assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void createdOrderIsNotReadBack() {
+        OrderNumberGenerator orderNumberGenerator = mock(OrderNumberGenerator.class);
+        when(orderNumberGenerator.next()).thenReturn("ORD-TEST-NEW");
+        ReflectionTestUtils.setField(orderService, "orderNumberGenerator", orderNumberGenerator);
+        ReflectionTestUtils.setField(orderService, "orderOutbox", mock(OrderOutbox.class));
+        OrderDTO request = new OrderDTO();
+        request.setUserId(1L);
+        request.setTotalAmount(new BigDecimal("25.00"));
+        request.setShippingAddress("1 Test Street");
+        request.setShippingPhone("0900000000");
+        request.setItems(List.of(new OrderItemDTO(null, null, 100L, null, 2, new BigDecimal("10.00"), null),
+                new OrderItemDTO(null, null, null, 7L, 1, new BigDecimal("5.00"), null)));
+        
+        OrderDTO order = orderService.createOrder(request);
+        
+        assertThat(order.getItems()).extracting(OrderItemDTO::getOrderId).containsOnly(order.getId());
+        assertThat(order.getItems()).extracting(OrderItemDTO::getSubtotal)
+                .containsExactly(new BigDecimal("20.00"), new BigDecimal("5.00"));
+        // Only the order insert goes through Hibernate; the items are one JDBC batch and not re-read
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(orderItemRepository.findByOrderId(order.getId())).hasSize(2);
+    }
+}
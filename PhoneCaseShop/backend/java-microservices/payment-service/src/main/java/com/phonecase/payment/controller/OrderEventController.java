@@ -0,0 +1,44 @@
+package com.phonecase.payment.controller;
+
+import com.phonecase.common.event.OrderEvent;
+import com.phonecase.common.event.OrderEventResult;
+import com.phonecase.common.exception.CustomException;
+import com.phonecase.common.exception.UnauthorizedException;
+import com.phonecase.common.security.InternalIdentitySigner;
+import com.phonecase.payment.service.OrderEventHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Receives batches of order events from order-service's outbox relay. Not routed by the API Gateway.
+@RestController
+@RequestMapping("/internal/order-events")
+public class OrderEventController {
+    
+    @Autowired
+    private OrderEventHandler orderEventHandler;
+    
+    @PostMapping
+    public ResponseEntity<List<OrderEventResult>> receive(@RequestBody List<OrderEvent> events, HttpServletRequest request) {
+        if (!InternalIdentitySigner.SYSTEM_ROLE.equals(request.getAttribute("userRole"))) {
+            throw new UnauthorizedException("Internal endpoint");
+        }
+        
+        List<OrderEventResult> results = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            if (event.getEventId() == null) {
+                continue;
+            }
+            try {
+                results.add(orderEventHandler.handle(event));
+            } catch (CustomException e) {
+                results.add(orderEventHandler.reject(event, e.getMessage()));
+            }
+        }
+        return ResponseEntity.ok(results);
+    }
+}
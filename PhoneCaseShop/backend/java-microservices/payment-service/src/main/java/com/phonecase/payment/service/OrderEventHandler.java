@@ -0,0 +1,63 @@
+package com.phonecase.payment.service;
+
+import com.phonecase.common.event.OrderEvent;
+import com.phonecase.common.event.OrderEventResult;
+import com.phonecase.common.event.ProcessedEventLog;
+import com.phonecase.payment.entity.Payment;
+import com.phonecase.payment.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Keeps payments in step with orders from order-service events. Each event is handled in its own
+// transaction together with its processed_order_events row, so a redelivered event changes nothing.
+@Service
+public class OrderEventHandler {
+    
+    static final String CONSUMER = "payment-service";
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private ProcessedEventLog processedEventLog;
+    
+    @Transactional
+    public OrderEventResult handle(OrderEvent event) {
+        if (!processedEventLog.claim(CONSUMER, event.getEventId())) {
+            return new OrderEventResult(event.getEventId(), OrderEventResult.DUPLICATE, null);
+        }
+        
+        Optional<Payment> existing = paymentRepository.findByOrderId(event.getOrderId());
+        if (OrderEvent.ORDER_CREATED.equals(event.getType())) {
+            if (existing.isEmpty()) {
+                Payment payment = new Payment();
+                payment.setOrderId(event.getOrderId());
+                payment.setUserId(event.getUserId());
+                payment.setAmount(event.getTotalAmount());
+                payment.setPaymentMethod(event.getPaymentMethod() != null ? event.getPaymentMethod() : "COD");
+                payment.setPaymentStatus("PENDING");
+                paymentRepository.save(payment);
+            }
+        } else if (OrderEvent.ORDER_CANCELLED.equals(event.getType()) || OrderEvent.ORDER_RETURNED.equals(event.getType())) {
+            // Mirrors the order, which is marked REFUNDED when it is cancelled or returned
+            existing.filter(payment -> !"REFUNDED".equals(payment.getPaymentStatus()))
+                    .ifPresent(payment -> {
+                        payment.setPaymentStatus("REFUNDED");
+                        paymentRepository.save(payment);
+                    });
+        }
+        return new OrderEventResult(event.getEventId(), OrderEventResult.PROCESSED, null);
+    }
+    
+    // Called after handle() failed and rolled back, so the refusal is recorded and not retried
+    @Transactional
+    public OrderEventResult reject(OrderEvent event, String reason) {
+        if (!processedEventLog.record(CONSUMER, event.getEventId(), OrderEventResult.REJECTED, reason)) {
+            return new OrderEventResult(event.getEventId(), OrderEventResult.DUPLICATE, null);
+        }
+        return new OrderEventResult(event.getEventId(), OrderEventResult.REJECTED, reason);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,11 +24,16 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
     
-    @Transactional
+    // Idempotent per order: order-service's OrderCreated event normally creates the payment first, so
+    // a request for an order that already has one returns it. Not transactional, so a concurrent
+    // insert that wins the unique order_id can still be read back.
     public PaymentDTO createPayment(PaymentDTO paymentDTO) {
-        // Check for duplicate payment
-        if (paymentRepository.findByOrderId(paymentDTO.getOrderId()).isPresent()) {
-            throw new ConflictException("Payment already exists for this order");
+        if (paymentDTO.getOrderId() == null) {
+            throw new BadRequestException("Order ID is required");
+        }
+        Optional<Payment> existing = paymentRepository.findByOrderId(paymentDTO.getOrderId());
+        if (existing.isPresent()) {
+            return convertToDTO(existing.get());
         }
         
         // Validate amount
@@ -46,7 +52,10 @@ public class PaymentService {
             payment = paymentRepository.save(payment);
             return convertToDTO(payment);
         } catch (DataIntegrityViolationException e) {
-            throw new ConflictException("Payment already exists for this order");
+            // Created concurrently by the order event or a repeated request
+            return paymentRepository.findByOrderId(paymentDTO.getOrderId())
+                    .map(this::convertToDTO)
+                    .orElseThrow(() -> new ConflictException("Failed to create payment for this order"));
         }
     }
     
@@ -5,32 +5,68 @@ import com.phonecase.product.entity.Product;
 import com.phonecase.product.repository.ProductRepository;
 import com.phonecase.common.exception.BadRequestException;
 import com.phonecase.common.exception.ResourceNotFoundException;
+import com.phonecase.common.streaming.JsonArrayStreamer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     
+    private static final String ACTIVE_PRODUCTS_SQL =
+            "SELECT id, name, description, price, category, brand, model, color, material, image_url, " +
+            "stock_quantity, is_active, created_at, updated_at " +
+            "FROM products WHERE is_active = 1 ORDER BY id";
+    
+    private static final RowMapper<ProductDTO> PRODUCT_ROW_MAPPER = (rs, rowNum) -> {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setDescription(rs.getString("description"));
+        dto.setPrice(rs.getBigDecimal("price"));
+        dto.setCategory(rs.getString("category"));
+        dto.setBrand(rs.getString("brand"));
+        dto.setModel(rs.getString("model"));
+        dto.setColor(rs.getString("color"));
+        dto.setMaterial(rs.getString("material"));
+        dto.setImageUrl(rs.getString("image_url"));
+        dto.setStockQuantity(rs.getObject("stock_quantity", Integer.class));
+        dto.setIsActive(rs.getObject("is_active", Boolean.class));
+        dto.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        dto.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return dto;
+    };
+    
     @Autowired
     private ProductRepository productRepository;
     
-    public List<ProductDTO> getAllProducts() {
-        List<Product> products = productRepository.findByIsActiveTrue();
-        if (products.isEmpty()) {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
+    // Streams active products straight from the result set instead of materializing the whole catalog
+    public StreamingResponseBody streamAllProducts() {
+        Boolean hasProducts = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN EXISTS (SELECT 1 FROM products WHERE is_active = 1) THEN 1 ELSE 0 END",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(hasProducts)) {
             throw new BadRequestException("No products available");
         }
-        return products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return jsonArrayStreamer.stream(ACTIVE_PRODUCTS_SQL, PRODUCT_ROW_MAPPER);
     }
     
     public List<ProductDTO> getAllProductsForAdmin() {
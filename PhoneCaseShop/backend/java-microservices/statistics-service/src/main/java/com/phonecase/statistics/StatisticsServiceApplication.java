@@ -3,9 +3,11 @@ package com.phonecase.statistics;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.phonecase.statistics", "com.phonecase.common"})
 @EnableDiscoveryClient
+@EnableScheduling
 public class StatisticsServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(StatisticsServiceApplication.class, args);
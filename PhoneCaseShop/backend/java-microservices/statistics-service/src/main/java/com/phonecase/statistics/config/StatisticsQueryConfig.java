@@ -0,0 +1,27 @@
+package com.phonecase.statistics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class StatisticsQueryConfig {
+    
+    // Runs the independent dashboard queries side by side. Bounded so a burst of dashboard loads
+    // cannot take every database connection; when the queue is full the caller runs the query itself.
+    @Bean
+    public ThreadPoolTaskExecutor statisticsQueryExecutor(
+            @Value("${statistics.query-pool.size:4}") int size,
+            @Value("${statistics.query-pool.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("stats-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -1,6 +1,11 @@
 package com.phonecase.statistics.controller;
 
+import com.phonecase.statistics.dto.OrderSeriesDTO;
+import com.phonecase.statistics.dto.ProductGroupPerformanceDTO;
+import com.phonecase.statistics.dto.ProductPerformanceDTO;
 import com.phonecase.statistics.dto.StatisticsDTO;
+import com.phonecase.statistics.service.OrderSeriesService;
+import com.phonecase.statistics.service.ProductStatsService;
 import com.phonecase.statistics.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +14,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/statistics")
 public class StatisticsController {
@@ -16,6 +23,12 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
     
+    @Autowired
+    private OrderSeriesService orderSeriesService;
+    
+    @Autowired
+    private ProductStatsService productStatsService;
+    
     @GetMapping
     public ResponseEntity<StatisticsDTO> getStatistics(
             @RequestParam(value = "period", required = false) String period,
@@ -23,7 +36,30 @@ public class StatisticsController {
         StatisticsDTO stats = statisticsService.getStatistics(period, startDate);
         return ResponseEntity.ok(stats);
     }
+    
+    // Revenue and order counts per HOUR, DAY or WEEK over [from, to), dates as yyyy-MM-dd
+    @GetMapping("/series")
+    public ResponseEntity<OrderSeriesDTO> getOrderSeries(
+            @RequestParam(value = "granularity", required = false) String granularity,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+        return ResponseEntity.ok(orderSeriesService.getSeries(granularity, from, to));
+    }
+    
+    // Best sellers over the last `days` days, today included; sortBy is units or revenue
+    @GetMapping("/products/top")
+    public ResponseEntity<List<ProductPerformanceDTO>> getTopProducts(
+            @RequestParam(value = "days", required = false) Integer days,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) String sortBy) {
+        return ResponseEntity.ok(productStatsService.getTopProducts(days, limit, sortBy));
+    }
+    
+    // Units and revenue per brand or category over the last `days` days
+    @GetMapping("/products/breakdown")
+    public ResponseEntity<List<ProductGroupPerformanceDTO>> getProductBreakdown(
+            @RequestParam(value = "days", required = false) Integer days,
+            @RequestParam(value = "by", required = false) String by) {
+        return ResponseEntity.ok(productStatsService.getGroupPerformance(days, by));
+    }
 }
-
-
-
@@ -0,0 +1,18 @@
+package com.phonecase.statistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSeriesDTO {
+    private String granularity; // HOUR, DAY or WEEK
+    private LocalDate from;
+    private LocalDate to; // exclusive
+    private List<OrderSeriesPointDTO> points;
+}
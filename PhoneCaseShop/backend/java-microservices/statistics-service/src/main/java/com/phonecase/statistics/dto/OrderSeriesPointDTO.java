@@ -0,0 +1,17 @@
+package com.phonecase.statistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSeriesPointDTO {
+    private LocalDateTime bucketStart;
+    private Long orders;
+    private BigDecimal revenue; // total_amount of the PAID orders
+}
@@ -0,0 +1,17 @@
+package com.phonecase.statistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductGroupPerformanceDTO {
+    private String name; // brand or category, null for products without one
+    private Long productCount;
+    private Long unitsSold;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,20 @@
+package com.phonecase.statistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPerformanceDTO {
+    private Long productId;
+    private String productName; // null if the product was deleted
+    private String brand;
+    private String category;
+    private Long unitsSold;
+    private BigDecimal revenue;
+    private Long uniqueBuyers; // approximate, null until the order rollup has been backfilled
+}
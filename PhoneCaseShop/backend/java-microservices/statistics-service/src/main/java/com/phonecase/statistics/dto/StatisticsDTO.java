@@ -21,6 +21,11 @@ public class StatisticsDTO {
     private Map<String, Long> ordersByStatus;
     private Map<String, BigDecimal> revenueByMonth;
     private Long lowStockProducts;
+    // Approximate distinct buyers, null until the order rollup has been backfilled
+    private Long activeBuyers; // in the selected period
+    private Long dailyActiveBuyers; // today
+    private Long weeklyActiveBuyers; // last 7 days, today included
+    private Double returningBuyerRate; // share of the period's buyers who also bought in statistics.buyers.lookback-days before it
 }
 
 
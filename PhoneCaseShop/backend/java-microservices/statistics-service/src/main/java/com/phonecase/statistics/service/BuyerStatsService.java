@@ -0,0 +1,155 @@
+package com.phonecase.statistics.service;
+
+import com.phonecase.statistics.sketch.HyperLogLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Approximate distinct-buyer counts. Past days are HyperLogLog sketches from buyer_daily_sketches and
+// product_buyer_daily_sketches, maintained by OrderRollupRefresher; a window's count is the estimate of
+// its days' sketches merged. Today's sketch is built live from orders. Until the rollup has been
+// backfilled nothing is counted, so the counts stay null instead of scanning all orders.
+@Service
+public class BuyerStatsService {
+    
+    private static final String NOT_CANCELLED = "status NOT IN ('CANCELLED', 'RETURNED')";
+    
+    private static final String LIVE_BUYERS_SQL =
+            "SELECT DISTINCT user_id FROM orders WHERE created_at >= ? AND created_at < ? AND " + NOT_CANCELLED;
+    
+    private static final String SKETCHES_SQL =
+            "SELECT sketch FROM buyer_daily_sketches WHERE stat_date >= ? AND stat_date < ?";
+    private static final String SKETCHES_BEFORE_SQL =
+            "SELECT sketch FROM buyer_daily_sketches WHERE stat_date < ?";
+    
+    // %s are the product id placeholders
+    private static final String PRODUCT_SKETCHES_SQL =
+            "SELECT product_id, sketch FROM product_buyer_daily_sketches " +
+            "WHERE stat_date >= ? AND stat_date < ? AND product_id IN (%s)";
+    private static final String LIVE_PRODUCT_BUYERS_SQL =
+            "SELECT DISTINCT oi.product_id, o.user_id FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o." + NOT_CANCELLED + " AND oi.product_id IN (%s)";
+    
+    // Returning buyers are the period's buyers who also bought in this many days before it
+    @Value("${statistics.buyers.lookback-days:365}")
+    private int lookbackDays;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderRollupRefresher orderRollupRefresher;
+    
+    BuyerCounts getBuyerCounts(DateRange range) {
+        BuyerCounts counts = new BuyerCounts();
+        if (!orderRollupRefresher.isBackfilled()) {
+            return counts;
+        }
+        LocalDate today = LocalDate.now();
+        HyperLogLog todays = liveSketch(today);
+        
+        HyperLogLog period = sketch(range, todays);
+        counts.activeBuyers = period.estimate();
+        counts.dailyActiveBuyers = todays.estimate();
+        counts.weeklyActiveBuyers = sketch(new DateRange(today.minusDays(6), today.plusDays(1)), todays).estimate();
+        
+        if (range.from != null && counts.activeBuyers > 0) {
+            HyperLogLog before = sketch(new DateRange(range.from.minusDays(lookbackDays), range.from), todays);
+            HyperLogLog union = new HyperLogLog();
+            union.merge(period);
+            union.merge(before);
+            // Buyers in both, by inclusion-exclusion; its error is relative to the union, so the rate
+            // is rough when few of the period's buyers are returning
+            long returning = counts.activeBuyers + before.estimate() - union.estimate();
+            returning = Math.max(0, Math.min(returning, counts.activeBuyers));
+            counts.returningBuyerRate = Math.round(returning * 10000.0 / counts.activeBuyers) / 10000.0;
+        }
+        return counts;
+    }
+    
+    // Approximate unique buyers of each product within window; empty until the rollup is backfilled
+    Map<Long, Long> getProductBuyers(Collection<Long> productIds, DateRange window) {
+        Map<Long, Long> buyers = new HashMap<>();
+        if (productIds.isEmpty() || !orderRollupRefresher.isBackfilled()) {
+            return buyers;
+        }
+        LocalDate today = LocalDate.now();
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, HyperLogLog> sketches = new HashMap<>();
+        
+        DateRange rolledUp = window.before(today);
+        if (rolledUp != null) {
+            jdbcTemplate.query(String.format(PRODUCT_SKETCHES_SQL, placeholders), rs -> {
+                sketches.computeIfAbsent(rs.getLong("product_id"), id -> new HyperLogLog())
+                        .merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+            }, args(productIds, Date.valueOf(rolledUp.from), Date.valueOf(rolledUp.to)));
+        }
+        DateRange live = window.from(today);
+        if (live != null) {
+            jdbcTemplate.query(String.format(LIVE_PRODUCT_BUYERS_SQL, placeholders), rs -> {
+                sketches.computeIfAbsent(rs.getLong("product_id"), id -> new HyperLogLog())
+                        .add(rs.getLong("user_id"));
+            }, args(productIds, Timestamp.valueOf(live.from.atStartOfDay()), Timestamp.valueOf(live.to.atStartOfDay())));
+        }
+        
+        for (Long productId : productIds) {
+            HyperLogLog sketch = sketches.get(productId);
+            buyers.put(productId, sketch == null ? 0L : sketch.estimate());
+        }
+        return buyers;
+    }
+    
+    // Rolled-up days of the range merged, plus today's sketch when the range covers today
+    private HyperLogLog sketch(DateRange range, HyperLogLog todays) {
+        LocalDate today = LocalDate.now();
+        HyperLogLog merged = new HyperLogLog();
+        DateRange rolledUp = range.before(today);
+        if (rolledUp != null) {
+            Object[] args = rolledUp.from == null ? new Object[] {Date.valueOf(rolledUp.to)}
+                    : new Object[] {Date.valueOf(rolledUp.from), Date.valueOf(rolledUp.to)};
+            jdbcTemplate.query(rolledUp.from == null ? SKETCHES_BEFORE_SQL : SKETCHES_SQL, rs -> {
+                merged.merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+            }, args);
+        }
+        boolean coversToday = (range.from == null || !range.from.isAfter(today))
+                && (range.to == null || range.to.isAfter(today));
+        if (coversToday) {
+            merged.merge(todays);
+        }
+        return merged;
+    }
+    
+    private HyperLogLog liveSketch(LocalDate day) {
+        HyperLogLog sketch = new HyperLogLog();
+        jdbcTemplate.query(LIVE_BUYERS_SQL, rs -> {
+            sketch.add(rs.getLong("user_id"));
+        }, Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        return sketch;
+    }
+    
+    private static Object[] args(Collection<Long> productIds, Object from, Object to) {
+        List<Object> args = new ArrayList<>();
+        args.add(from);
+        args.add(to);
+        args.addAll(productIds);
+        return args.toArray();
+    }
+    
+    static class BuyerCounts {
+        Long activeBuyers;
+        Long dailyActiveBuyers;
+        Long weeklyActiveBuyers;
+        Double returningBuyerRate;
+    }
+}
@@ -0,0 +1,85 @@
+package com.phonecase.statistics.service;
+
+import com.phonecase.common.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+// Half-open [from, to) range of days; a null bound is open. Queries compare created_at against the
+// bounds as parameters, so the filter can seek IX_orders_created_at and reuses one cached plan.
+final class DateRange {
+    
+    static final DateRange ALL_TIME = new DateRange(null, null);
+    
+    final LocalDate from;
+    final LocalDate to;
+    
+    DateRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+    
+    // Without a startDate the period ends today (DAY is today, WEEK the last week, ...).
+    // With one it starts there and spans one period.
+    static DateRange forPeriod(String period, String startDate) {
+        LocalDate start = parse(startDate);
+        boolean allTime = period == null || period.isEmpty() || "all".equalsIgnoreCase(period);
+        if (start == null) {
+            LocalDate today = LocalDate.now();
+            LocalDate tomorrow = today.plusDays(1);
+            switch (allTime ? "" : period.toUpperCase()) {
+                case "DAY":
+                    return new DateRange(today, tomorrow);
+                case "WEEK":
+                    return new DateRange(today.minusWeeks(1), tomorrow);
+                case "MONTH":
+                    return new DateRange(today.minusMonths(1), tomorrow);
+                case "YEAR":
+                    return new DateRange(today.minusYears(1), tomorrow);
+                default:
+                    return ALL_TIME;
+            }
+        }
+        switch (allTime ? "" : period.toUpperCase()) {
+            case "DAY":
+                return new DateRange(start, start.plusDays(1));
+            case "WEEK":
+                return new DateRange(start, start.plusWeeks(1));
+            case "MONTH":
+                return new DateRange(start, start.plusMonths(1));
+            case "YEAR":
+                return new DateRange(start, start.plusYears(1));
+            default:
+                return new DateRange(start, null);
+        }
+    }
+    
+    // The part of this range on or after day, or null when there is none
+    DateRange from(LocalDate day) {
+        LocalDate clippedFrom = from == null || from.isBefore(day) ? day : from;
+        if (to != null && !clippedFrom.isBefore(to)) {
+            return null;
+        }
+        return new DateRange(clippedFrom, to);
+    }
+    
+    // The part of this range before day, or null when there is none
+    DateRange before(LocalDate day) {
+        LocalDate clippedTo = to == null || to.isAfter(day) ? day : to;
+        if (from != null && !from.isBefore(clippedTo)) {
+            return null;
+        }
+        return new DateRange(from, clippedTo);
+    }
+    
+    private static LocalDate parse(String date) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("startDate must be in yyyy-MM-dd format");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.phonecase.statistics.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.phonecase.statistics.sketch.HyperLogLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Keeps order_daily_stats, order_hourly_stats, product_daily_stats and the buyer sketches in step with
+// orders. Each run finds the days whose orders changed since the watermark (orders.updated_at is
+// bumped by a trigger on every update) and recomputes just those days from orders. When no watermark
+// exists yet, every month since the first order is rebuilt once.
+@Component
+public class OrderRollupRefresher {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupRefresher.class);
+    
+    static final String ROLLUP = "order_rollups";
+    
+    private static final String NOW_SQL = "SELECT CAST(GETDATE() AS DATETIME2)";
+    
+    private static final String WATERMARK_SQL = "SELECT watermark FROM statistics_watermarks WHERE name = ?";
+    
+    private static final String SAVE_WATERMARK_SQL =
+            "MERGE statistics_watermarks AS w USING (SELECT ? AS name, ? AS watermark) AS s ON w.name = s.name " +
+            "WHEN MATCHED THEN UPDATE SET watermark = s.watermark " +
+            "WHEN NOT MATCHED THEN INSERT (name, watermark) VALUES (s.name, s.watermark);";
+    
+    // One writer at a time across instances; returns a negative code when the lock was not granted
+    private static final String LOCK_SQL =
+            "DECLARE @result INT; " +
+            "EXEC @result = sp_getapplock @Resource = ?, @LockMode = 'Exclusive', @LockOwner = 'Transaction', @LockTimeout = ?; " +
+            "SELECT @result";
+    
+    private static final String CHANGED_DAYS_SQL =
+            "SELECT DISTINCT CAST(created_at AS DATE) FROM orders WHERE updated_at >= ?";
+    
+    private static final String FIRST_ORDER_SQL = "SELECT MIN(created_at) FROM orders";
+    
+    private static final String DELETE_DAILY_SQL =
+            "DELETE FROM order_daily_stats WHERE stat_date >= ? AND stat_date < ?";
+    
+    private static final String REBUILD_DAILY_SQL =
+            "INSERT INTO order_daily_stats (stat_date, status, order_count, paid_revenue) " +
+            "SELECT CAST(created_at AS DATE), status, COUNT(*), " +
+            "COALESCE(SUM(CASE WHEN payment_status = 'PAID' THEN total_amount END), 0) " +
+            "FROM orders WHERE created_at >= ? AND created_at < ? " +
+            "GROUP BY CAST(created_at AS DATE), status";
+    
+    private static final String DELETE_HOURLY_SQL =
+            "DELETE FROM order_hourly_stats WHERE stat_hour >= ? AND stat_hour < ?";
+    
+    private static final String REBUILD_HOURLY_SQL =
+            "INSERT INTO order_hourly_stats (stat_hour, order_count, paid_revenue) " +
+            "SELECT DATEADD(HOUR, DATEDIFF(HOUR, 0, created_at), 0), COUNT(*), " +
+            "COALESCE(SUM(CASE WHEN payment_status = 'PAID' THEN total_amount END), 0) " +
+            "FROM orders WHERE created_at >= ? AND created_at < ? " +
+            "GROUP BY DATEADD(HOUR, DATEDIFF(HOUR, 0, created_at), 0)";
+    
+    private static final String DELETE_PRODUCTS_SQL =
+            "DELETE FROM product_daily_stats WHERE stat_date >= ? AND stat_date < ?";
+    
+    private static final String REBUILD_PRODUCTS_SQL =
+            "INSERT INTO product_daily_stats (stat_date, product_id, units, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.product_id, SUM(oi.quantity), SUM(oi.subtotal) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o.status NOT IN ('CANCELLED', 'RETURNED') " +
+            "AND oi.product_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.product_id";
+    
+    private static final String DELETE_BUYERS_SQL =
+            "DELETE FROM buyer_daily_sketches WHERE stat_date >= ? AND stat_date < ?";
+    
+    // Sorted by day so each day's sketch is complete once the next day starts
+    private static final String BUYERS_SQL =
+            "SELECT DISTINCT CAST(created_at AS DATE) AS stat_date, user_id FROM orders " +
+            "WHERE created_at >= ? AND created_at < ? AND status NOT IN ('CANCELLED', 'RETURNED') " +
+            "ORDER BY CAST(created_at AS DATE)";
+    
+    private static final String INSERT_BUYERS_SQL =
+            "INSERT INTO buyer_daily_sketches (stat_date, sketch) VALUES (?, ?)";
+    
+    private static final String DELETE_PRODUCT_BUYERS_SQL =
+            "DELETE FROM product_buyer_daily_sketches WHERE stat_date >= ? AND stat_date < ?";
+    
+    private static final String PRODUCT_BUYERS_SQL =
+            "SELECT DISTINCT CAST(o.created_at AS DATE) AS stat_date, oi.product_id, o.user_id " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o.status NOT IN ('CANCELLED', 'RETURNED') " +
+            "AND oi.product_id IS NOT NULL " +
+            "ORDER BY CAST(o.created_at AS DATE), oi.product_id";
+    
+    private static final String INSERT_PRODUCT_BUYERS_SQL =
+            "INSERT INTO product_buyer_daily_sketches (stat_date, product_id, sketch) VALUES (?, ?, ?)";
+    
+    // Rows changed this long before the watermark are read again, covering transactions that
+    // committed after a refresh with an earlier updated_at. Recomputing a day is idempotent.
+    @Value("${statistics.rollup.overlap:5m}")
+    private Duration overlap;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private volatile boolean backfilled;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Scheduled(initialDelayString = "${statistics.rollup.initial-delay-ms:5000}",
+               fixedDelayString = "${statistics.rollup.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            if (watermark() == null) {
+                // The watermark is gone, e.g. schema.sql was re-run, so the rollup is empty until rebuilt
+                backfilled = false;
+                backfill();
+                backfilled = true;
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!lock(0)) {
+                    return; // another instance is refreshing
+                }
+                Timestamp now = jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class);
+                Timestamp since = Timestamp.valueOf(watermark().toLocalDateTime().minus(overlap));
+                List<LocalDate> days = jdbcTemplate.queryForList(CHANGED_DAYS_SQL, Date.class, since).stream()
+                        .map(Date::toLocalDate)
+                        .sorted()
+                        .toList();
+                for (LocalDate day : days) {
+                    rebuild(day, day.plusDays(1));
+                }
+                saveWatermark(now);
+            });
+        } catch (DataAccessException e) {
+            // Nothing is lost, the next run reads from the same watermark
+            log.warn("Order rollup refresh failed: {}", e.getMessage());
+        }
+    }
+    
+    // True once the rollup holds every day up to its watermark. Cached between refreshes; a refresh
+    // that finds the watermark missing clears it again.
+    public boolean isBackfilled() {
+        if (!backfilled) {
+            try {
+                backfilled = watermark() != null;
+            } catch (DataAccessException e) {
+                return false;
+            }
+        }
+        return backfilled;
+    }
+    
+    // One-time rebuild of the whole rollup, a month per transaction. Delete the order_rollups
+    // row from statistics_watermarks to run it again.
+    public void backfill() {
+        Timestamp startedAt = jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class);
+        Timestamp firstOrder = jdbcTemplate.queryForObject(FIRST_ORDER_SQL, Timestamp.class);
+        if (firstOrder != null) {
+            LocalDate month = firstOrder.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            LocalDate end = LocalDate.now().plusDays(1);
+            log.info("Backfilling {} from {}", ROLLUP, month);
+            while (month.isBefore(end)) {
+                LocalDate from = month;
+                LocalDate to = month.plusMonths(1);
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!lock(60000)) {
+                        throw new CannotAcquireLockException("Timed out waiting for the " + ROLLUP + " lock");
+                    }
+                    rebuild(from, to);
+                });
+                month = to;
+            }
+        }
+        // Orders changed while the backfill ran are picked up by the next refresh
+        transactionTemplate.executeWithoutResult(status -> saveWatermark(startedAt));
+    }
+    
+    private void rebuild(LocalDate from, LocalDate to) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        jdbcTemplate.update(DELETE_DAILY_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(REBUILD_DAILY_SQL, start, end);
+        jdbcTemplate.update(DELETE_HOURLY_SQL, start, end);
+        jdbcTemplate.update(REBUILD_HOURLY_SQL, start, end);
+        jdbcTemplate.update(DELETE_PRODUCTS_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(REBUILD_PRODUCTS_SQL, start, end);
+        
+        SketchRows buyers = new SketchRows();
+        jdbcTemplate.query(BUYERS_SQL, rs -> {
+            buyers.add(rs.getLong("user_id"), rs.getDate("stat_date"));
+        }, start, end);
+        jdbcTemplate.update(DELETE_BUYERS_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.batchUpdate(INSERT_BUYERS_SQL, buyers.finish());
+        
+        SketchRows productBuyers = new SketchRows();
+        jdbcTemplate.query(PRODUCT_BUYERS_SQL, rs -> {
+            productBuyers.add(rs.getLong("user_id"), rs.getDate("stat_date"), rs.getLong("product_id"));
+        }, start, end);
+        jdbcTemplate.update(DELETE_PRODUCT_BUYERS_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_BUYERS_SQL, productBuyers.finish());
+    }
+    
+    private boolean lock(int timeoutMillis) {
+        Integer result = jdbcTemplate.queryForObject(LOCK_SQL, Integer.class, ROLLUP, timeoutMillis);
+        return result != null && result >= 0;
+    }
+    
+    // Rollup time up to which orders have been folded in, or null before the first backfill
+    Timestamp watermark() {
+        try {
+            return jdbcTemplate.queryForObject(WATERMARK_SQL, Timestamp.class, ROLLUP);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+    
+    private void saveWatermark(Timestamp watermark) {
+        jdbcTemplate.update(SAVE_WATERMARK_SQL, ROLLUP, watermark);
+    }
+    
+    // Folds user ids sorted by key into one insert row per key: the key columns followed by the
+    // serialized sketch. Only the current key's sketch is held in memory.
+    private static class SketchRows {
+        private final List<Object[]> rows = new ArrayList<>();
+        private Object[] key;
+        private HyperLogLog sketch;
+        
+        void add(long userId, Object... rowKey) {
+            if (!Arrays.equals(rowKey, key)) {
+                flush();
+                key = rowKey;
+                sketch = new HyperLogLog();
+            }
+            sketch.add(userId);
+        }
+        
+        List<Object[]> finish() {
+            flush();
+            key = null;
+            return rows;
+        }
+        
+        private void flush() {
+            if (key != null) {
+                Object[] row = Arrays.copyOf(key, key.length + 1);
+                row[key.length] = sketch.toBytes();
+                rows.add(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.phonecase.statistics.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.statistics.dto.OrderSeriesDTO;
+import com.phonecase.statistics.dto.OrderSeriesPointDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Revenue and order counts bucketed by hour, day or week.
+//
+// Past days are read from order_hourly_stats and cached per day (24 hourly buckets each), so a warm
+// one-year series is assembled from memory. Missing days are loaded lazily with one range query.
+// Today is still changing and is always counted live from orders. Days recomputed by the rollup
+// refresher, on any instance, are evicted by sync() using the rollup watermark and
+// order_daily_stats.refreshed_at.
+@Service
+public class OrderSeriesService {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderSeriesService.class);
+    
+    private static final int HOURS = 24;
+    
+    private static final String HOURLY_SQL =
+            "SELECT stat_hour, order_count, paid_revenue FROM order_hourly_stats WHERE stat_hour >= ? AND stat_hour < ?";
+    
+    private static final String LIVE_HOURLY_SQL =
+            "SELECT DATEADD(HOUR, DATEDIFF(HOUR, 0, created_at), 0) AS stat_hour, COUNT(*) AS order_count, " +
+            "COALESCE(SUM(CASE WHEN payment_status = 'PAID' THEN total_amount END), 0) AS paid_revenue " +
+            "FROM orders WHERE created_at >= ? AND created_at < ? " +
+            "GROUP BY DATEADD(HOUR, DATEDIFF(HOUR, 0, created_at), 0)";
+    
+    private static final String REFRESHED_DAYS_SQL =
+            "SELECT DISTINCT stat_date FROM order_daily_stats WHERE refreshed_at >= ?";
+    
+    @Value("${statistics.series.cache-days:800}")
+    private long cacheDays;
+    
+    @Value("${statistics.series.max-points:10000}")
+    private int maxPoints;
+    
+    @Value("${statistics.series.default-days:30}")
+    private int defaultDays;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderRollupRefresher orderRollupRefresher;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    private Cache<LocalDate, DayBuckets> days;
+    
+    // Rollup watermark seen by the last sync, null before the first one or while there is none
+    private Timestamp lastWatermark;
+    
+    // Bumped on every eviction, so a load that raced with one does not cache what it read
+    private final AtomicLong evictions = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        days = Caffeine.newBuilder()
+                .maximumSize(cacheDays)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, days, "statistics.series.days");
+        }
+    }
+    
+    public OrderSeriesDTO getSeries(String granularity, String from, String to) {
+        String unit = granularity == null || granularity.isEmpty() ? "DAY" : granularity.toUpperCase();
+        if (!unit.equals("HOUR") && !unit.equals("DAY") && !unit.equals("WEEK")) {
+            throw new BadRequestException("granularity must be HOUR, DAY or WEEK");
+        }
+        LocalDate end = to == null || to.isEmpty() ? LocalDate.now().plusDays(1) : parse(to, "to");
+        LocalDate start = from == null || from.isEmpty() ? end.minusDays(defaultDays) : parse(from, "from");
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("from must be before to");
+        }
+        long dayCount = ChronoUnit.DAYS.between(start, end);
+        if (dayCount * (unit.equals("HOUR") ? HOURS : 1) > maxPoints) {
+            throw new BadRequestException("Range too large, at most " + maxPoints + " points per request");
+        }
+        
+        List<DayBuckets> buckets = load(start, end);
+        List<OrderSeriesPointDTO> points = new ArrayList<>();
+        switch (unit) {
+            case "HOUR":
+                for (DayBuckets day : buckets) {
+                    for (int hour = 0; hour < HOURS; hour++) {
+                        points.add(new OrderSeriesPointDTO(day.date.atTime(hour, 0), day.orders[hour],
+                                BigDecimal.valueOf(day.revenueCents[hour], 2)));
+                    }
+                }
+                break;
+            case "DAY":
+                for (DayBuckets day : buckets) {
+                    points.add(new OrderSeriesPointDTO(day.date.atStartOfDay(), day.totalOrders(),
+                            BigDecimal.valueOf(day.totalRevenueCents(), 2)));
+                }
+                break;
+            default:
+                // Weeks start on Monday; the first and last week may be partial
+                OrderSeriesPointDTO week = null;
+                long weekRevenueCents = 0;
+                for (DayBuckets day : buckets) {
+                    LocalDateTime weekStart = day.date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+                    if (week == null || !week.getBucketStart().equals(weekStart)) {
+                        if (week != null) {
+                            week.setRevenue(BigDecimal.valueOf(weekRevenueCents, 2));
+                        }
+                        week = new OrderSeriesPointDTO(weekStart, 0L, null);
+                        weekRevenueCents = 0;
+                        points.add(week);
+                    }
+                    week.setOrders(week.getOrders() + day.totalOrders());
+                    weekRevenueCents += day.totalRevenueCents();
+                }
+                week.setRevenue(BigDecimal.valueOf(weekRevenueCents, 2));
+                break;
+        }
+        return new OrderSeriesDTO(unit, start, end, points);
+    }
+    
+    // Evicts cached days the rollup recomputed since the last sync. Refreshes hold the rollup lock and
+    // read the watermark they save only once they have it, after the previous refresh committed, and
+    // stamp their rows later still. So however long a refresh runs, every refresh committed since the
+    // last sync wrote refreshed_at at or after the watermark that sync saw. The watermark only moves
+    // when a refresh commits, and it is read before the days so a refresh committing in between is
+    // evicted again next time rather than missed.
+    @Scheduled(fixedDelayString = "${statistics.series.sync-interval-ms:10000}")
+    public void sync() {
+        try {
+            Timestamp watermark = orderRollupRefresher.watermark();
+            if (lastWatermark != null && watermark != null) {
+                if (!watermark.equals(lastWatermark)) {
+                    for (Date day : jdbcTemplate.queryForList(REFRESHED_DAYS_SQL, Date.class, lastWatermark)) {
+                        days.invalidate(day.toLocalDate());
+                        evictions.incrementAndGet();
+                    }
+                }
+            } else {
+                days.invalidateAll();
+                evictions.incrementAndGet();
+            }
+            lastWatermark = watermark;
+        } catch (DataAccessException e) {
+            log.warn("Order series cache sync failed: {}", e.getMessage());
+        }
+    }
+    
+    // One DayBuckets per day of [start, end), from the cache where possible
+    private List<DayBuckets> load(LocalDate start, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        boolean rollupReady = orderRollupRefresher.isBackfilled();
+        
+        Map<LocalDate, DayBuckets> found = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        LocalDate closedEnd = end.isAfter(today) ? today : end;
+        for (LocalDate day = start; day.isBefore(closedEnd); day = day.plusDays(1)) {
+            DayBuckets cached = rollupReady ? days.getIfPresent(day) : null;
+            if (cached != null) {
+                found.put(day, cached);
+            } else {
+                if (firstMissing == null) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
+            }
+        }
+        if (firstMissing != null) {
+            long evictionsBefore = evictions.get();
+            Map<LocalDate, DayBuckets> loaded = query(rollupReady ? HOURLY_SQL : LIVE_HOURLY_SQL, firstMissing, lastMissing.plusDays(1));
+            for (LocalDate day = firstMissing; !day.isAfter(lastMissing); day = day.plusDays(1)) {
+                DayBuckets buckets = loaded.computeIfAbsent(day, DayBuckets::new);
+                found.putIfAbsent(day, buckets);
+                if (rollupReady && evictions.get() == evictionsBefore) {
+                    days.put(day, buckets);
+                }
+            }
+        }
+        if (!today.isBefore(start) && today.isBefore(end)) {
+            found.putAll(query(LIVE_HOURLY_SQL, today, today.plusDays(1)));
+        }
+        
+        List<DayBuckets> result = new ArrayList<>();
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            result.add(found.computeIfAbsent(day, DayBuckets::new)); // future days are empty
+        }
+        return result;
+    }
+    
+    private Map<LocalDate, DayBuckets> query(String sql, LocalDate from, LocalDate to) {
+        Map<LocalDate, DayBuckets> loaded = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            LocalDateTime hour = rs.getTimestamp("stat_hour").toLocalDateTime();
+            DayBuckets day = loaded.computeIfAbsent(hour.toLocalDate(), DayBuckets::new);
+            day.orders[hour.getHour()] += rs.getLong("order_count");
+            day.revenueCents[hour.getHour()] += rs.getBigDecimal("paid_revenue").movePointRight(2).longValueExact();
+        }, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+        return loaded;
+    }
+    
+    private static LocalDate parse(String date, String name) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be in yyyy-MM-dd format");
+        }
+    }
+    
+    // Hourly buckets of one day; revenue in cents so a cached day is two small arrays
+    private static class DayBuckets {
+        private final LocalDate date;
+        private final long[] orders = new long[HOURS];
+        private final long[] revenueCents = new long[HOURS];
+        
+        DayBuckets(LocalDate date) {
+            this.date = date;
+        }
+        
+        long totalOrders() {
+            long total = 0;
+            for (long count : orders) {
+                total += count;
+            }
+            return total;
+        }
+        
+        long totalRevenueCents() {
+            long total = 0;
+            for (long cents : revenueCents) {
+                total += cents;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.phonecase.statistics.service;
+
+import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.statistics.dto.ProductGroupPerformanceDTO;
+import com.phonecase.statistics.dto.ProductPerformanceDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Best sellers and revenue per product, brand or category over a rolling window of days ending today.
+// Past days come from product_daily_stats, maintained by OrderRollupRefresher; only today's items
+// are read from order_items. Unique buyers per product come from BuyerStatsService.
+@Service
+public class ProductStatsService {
+    
+    // Both halves take a [from, to) range; an empty range skips one of them
+    private static final String SALES_CTE =
+            "WITH sales AS (" +
+            "SELECT product_id, units, revenue FROM product_daily_stats WHERE stat_date >= ? AND stat_date < ? " +
+            "UNION ALL " +
+            "SELECT oi.product_id, oi.quantity, oi.subtotal FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o.status NOT IN ('CANCELLED', 'RETURNED') " +
+            "AND oi.product_id IS NOT NULL) ";
+    
+    // %s is units or revenue
+    private static final String TOP_PRODUCTS_SQL = SALES_CTE +
+            "SELECT TOP (?) s.product_id, p.name, p.brand, p.category, SUM(s.units) AS units, SUM(s.revenue) AS revenue " +
+            "FROM sales s LEFT JOIN products p ON p.id = s.product_id " +
+            "GROUP BY s.product_id, p.name, p.brand, p.category " +
+            "ORDER BY SUM(s.%s) DESC, s.product_id";
+    
+    // %s is brand or category
+    private static final String GROUPS_SQL = SALES_CTE +
+            "SELECT p.%1$s AS name, COUNT(DISTINCT s.product_id) AS products, SUM(s.units) AS units, SUM(s.revenue) AS revenue " +
+            "FROM sales s LEFT JOIN products p ON p.id = s.product_id " +
+            "GROUP BY p.%1$s " +
+            "ORDER BY SUM(s.revenue) DESC";
+    
+    private static final int MAX_DAYS = 366;
+    private static final int MAX_LIMIT = 100;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderRollupRefresher orderRollupRefresher;
+    
+    @Autowired
+    private BuyerStatsService buyerStatsService;
+    
+    public List<ProductPerformanceDTO> getTopProducts(Integer days, Integer limit, String sortBy) {
+        int top = limit == null ? 10 : limit;
+        if (top < 1 || top > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        String order = sortBy == null || sortBy.isEmpty() ? "units" : sortBy.toLowerCase();
+        if (!order.equals("units") && !order.equals("revenue")) {
+            throw new BadRequestException("sortBy must be units or revenue");
+        }
+        
+        DateRange window = window(days);
+        Object[] windowArgs = windowArgs(window);
+        Object[] args = new Object[windowArgs.length + 1];
+        System.arraycopy(windowArgs, 0, args, 0, windowArgs.length);
+        args[windowArgs.length] = top;
+        List<ProductPerformanceDTO> products = jdbcTemplate.query(String.format(TOP_PRODUCTS_SQL, order), (rs, rowNum) -> new ProductPerformanceDTO(
+                rs.getLong("product_id"),
+                rs.getString("name"),
+                rs.getString("brand"),
+                rs.getString("category"),
+                rs.getLong("units"),
+                rs.getBigDecimal("revenue"),
+                null), args);
+        
+        Map<Long, Long> buyers = buyerStatsService.getProductBuyers(
+                products.stream().map(ProductPerformanceDTO::getProductId).collect(Collectors.toList()), window);
+        products.forEach(product -> product.setUniqueBuyers(buyers.get(product.getProductId())));
+        return products;
+    }
+    
+    public List<ProductGroupPerformanceDTO> getGroupPerformance(Integer days, String by) {
+        String column = by == null || by.isEmpty() ? "category" : by.toLowerCase();
+        if (!column.equals("brand") && !column.equals("category")) {
+            throw new BadRequestException("by must be brand or category");
+        }
+        return jdbcTemplate.query(String.format(GROUPS_SQL, column), (rs, rowNum) -> new ProductGroupPerformanceDTO(
+                rs.getString("name"),
+                rs.getLong("products"),
+                rs.getLong("units"),
+                rs.getBigDecimal("revenue")), windowArgs(window(days)));
+    }
+    
+    // The last `days` days, today included
+    private DateRange window(Integer days) {
+        int length = days == null ? 30 : days;
+        if (length < 1 || length > MAX_DAYS) {
+            throw new BadRequestException("days must be between 1 and " + MAX_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        return new DateRange(today.minusDays(length - 1L), today.plusDays(1));
+    }
+    
+    // Parameters of SALES_CTE for the window
+    private Object[] windowArgs(DateRange window) {
+        LocalDate today = LocalDate.now();
+        
+        // Until the rollup has been backfilled the whole window is read live
+        boolean rollupReady = orderRollupRefresher.isBackfilled();
+        DateRange rolledUp = rollupReady ? window.before(today) : null;
+        DateRange live = rollupReady ? window.from(today) : window;
+        if (rolledUp == null) {
+            rolledUp = new DateRange(today, today);
+        }
+        return new Object[] {
+                Date.valueOf(rolledUp.from), Date.valueOf(rolledUp.to),
+                Timestamp.valueOf(live.from.atStartOfDay()), Timestamp.valueOf(live.to.atStartOfDay())
+        };
+    }
+}
@@ -4,18 +4,47 @@ import com.phonecase.statistics.dto.StatisticsDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 public class StatisticsService {
     
+    private static final List<String> ORDER_STATUSES =
+            List.of("PENDING", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED", "RETURNED");
+    
+    // %s is the WHERE clause built by queryOrderCounts, only its placeholders vary
+    private static final String ROLLUP_COUNTS_SQL =
+            "SELECT status, SUM(order_count) AS orders, SUM(paid_revenue) AS revenue " +
+            "FROM order_daily_stats%s GROUP BY status";
+    static final String LIVE_COUNTS_SQL =
+            "SELECT status, COUNT(*) AS orders, " +
+            "COALESCE(SUM(CASE WHEN payment_status = 'PAID' THEN total_amount END), 0) AS revenue " +
+            "FROM orders%s GROUP BY status";
+    
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    @Autowired
+    private OrderRollupRefresher orderRollupRefresher;
+    
+    @Autowired
+    private BuyerStatsService buyerStatsService;
+    
+    @Autowired
+    private ThreadPoolTaskExecutor statisticsQueryExecutor;
+    
     private Long safeQueryForLong(String sql) {
         try {
             Long result = jdbcTemplate.queryForObject(sql, Long.class);
@@ -31,75 +60,43 @@ public class StatisticsService {
         }
     }
     
-    private BigDecimal safeQueryForBigDecimal(String sql) {
-        try {
-            BigDecimal result = jdbcTemplate.queryForObject(sql, BigDecimal.class);
-            return result != null ? result : BigDecimal.ZERO;
-        } catch (EmptyResultDataAccessException e) {
-            return BigDecimal.ZERO;
-        } catch (Exception e) {
-            // Log error for debugging
-            System.err.println("Error executing query: " + sql);
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
-            return BigDecimal.ZERO;
-        }
-    }
-    
     public StatisticsDTO getStatistics() {
         return getStatistics(null, null); // Default: all time
     }
     
     public StatisticsDTO getStatistics(String period, String startDate) {
         StatisticsDTO stats = new StatisticsDTO();
-        
-        // Build date filter SQL
-        String dateFilter = buildDateFilter(period, startDate);
+        DateRange range = DateRange.forPeriod(period, startDate);
         
         try {
-            // Total Users
-            stats.setTotalUsers(safeQueryForLong("SELECT COUNT(*) FROM users"));
-            
-            // Total Orders with date filter
-            String ordersQuery = "SELECT COUNT(*) FROM orders" + dateFilter;
-            stats.setTotalOrders(safeQueryForLong(ordersQuery));
-            
-            // Total Products
-            stats.setTotalProducts(safeQueryForLong("SELECT COUNT(*) FROM products WHERE is_active = 1"));
+            // The queries are independent, so they run side by side and the dashboard waits
+            // for the slowest one instead of their sum
+            CompletableFuture<Long> totalUsers = supply(() -> safeQueryForLong("SELECT COUNT(*) FROM users"));
+            CompletableFuture<Long> totalProducts = supply(() -> safeQueryForLong("SELECT COUNT(*) FROM products WHERE is_active = 1"));
+            CompletableFuture<Long> lowStockProducts = supply(() -> safeQueryForLong(
+                    "SELECT COUNT(*) FROM inventory WHERE is_low_stock = 1"));
             
-            // Total Revenue with date filter
-            String revenueQuery = "SELECT COALESCE(SUM(total_amount), 0) FROM orders WHERE payment_status = 'PAID'" + 
-                                 (dateFilter.isEmpty() ? "" : " AND " + dateFilter.substring(5)); // Remove " WHERE"
-            stats.setTotalRevenue(safeQueryForBigDecimal(revenueQuery));
+            // Orders and revenue by status: one grouped read of the daily rollup plus one of today's orders.
+            // Until the rollup has been backfilled everything is counted live.
+            boolean rollupReady = orderRollupRefresher.isBackfilled();
+            LocalDate today = LocalDate.now();
+            DateRange rolledUp = rollupReady ? range.before(today) : null;
+            DateRange live = rollupReady ? range.from(today) : range;
+            CompletableFuture<OrderCounts> rolledUpOrders = rolledUp == null ? CompletableFuture.completedFuture(new OrderCounts())
+                    : supply(() -> queryOrderCounts(ROLLUP_COUNTS_SQL, "stat_date", rolledUp, false));
+            CompletableFuture<OrderCounts> liveOrders = live == null ? CompletableFuture.completedFuture(new OrderCounts())
+                    : supply(() -> queryOrderCounts(LIVE_COUNTS_SQL, "created_at", live, true));
+            CompletableFuture<BuyerStatsService.BuyerCounts> buyers = supply(() -> buyerStatsService.getBuyerCounts(range));
             
-            // Orders by Status with date filter
-            String statusFilter = dateFilter.isEmpty() ? "" : dateFilter.substring(5); // Remove " WHERE"
-            stats.setPendingOrders(safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'PENDING'" + 
-                                                    (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            stats.setCompletedOrders(safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'DELIVERED'" + 
-                                                       (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            stats.setCancelledOrders(safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'CANCELLED'" + 
-                                                      (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            
-            // Orders by Status Map
-            Map<String, Long> ordersByStatus = new HashMap<>();
-            ordersByStatus.put("PENDING", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'PENDING'" + 
-                                                           (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            ordersByStatus.put("PROCESSING", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'PROCESSING'" + 
-                                                              (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            ordersByStatus.put("SHIPPED", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'SHIPPED'" + 
-                                                           (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            ordersByStatus.put("DELIVERED", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'DELIVERED'" + 
-                                                              (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            ordersByStatus.put("CANCELLED", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'CANCELLED'" + 
-                                                              (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            ordersByStatus.put("RETURNED", safeQueryForLong("SELECT COUNT(*) FROM orders WHERE status = 'RETURNED'" + 
-                                                             (statusFilter.isEmpty() ? "" : " AND " + statusFilter)));
-            stats.setOrdersByStatus(ordersByStatus);
-            
-            // Low Stock Products
-            stats.setLowStockProducts(safeQueryForLong(
-                    "SELECT COUNT(*) FROM inventory WHERE available_quantity < reorder_level"));
+            stats.setTotalUsers(totalUsers.join());
+            stats.setTotalProducts(totalProducts.join());
+            fillOrderStatistics(stats, rolledUpOrders.join(), liveOrders.join());
+            stats.setLowStockProducts(lowStockProducts.join());
+            BuyerStatsService.BuyerCounts buyerCounts = buyers.join();
+            stats.setActiveBuyers(buyerCounts.activeBuyers);
+            stats.setDailyActiveBuyers(buyerCounts.dailyActiveBuyers);
+            stats.setWeeklyActiveBuyers(buyerCounts.weeklyActiveBuyers);
+            stats.setReturningBuyerRate(buyerCounts.returningBuyerRate);
         } catch (Exception e) {
             // Log error for debugging
             System.err.println("Error in getStatistics: " + e.getMessage());
@@ -119,29 +116,54 @@ public class StatisticsService {
         return stats;
     }
     
-    private String buildDateFilter(String period, String startDate) {
-        if (period == null || period.isEmpty() || "all".equalsIgnoreCase(period)) {
-            return ""; // No filter
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, statisticsQueryExecutor);
+    }
+    
+    private void fillOrderStatistics(StatisticsDTO stats, OrderCounts... parts) {
+        Map<String, Long> ordersByStatus = new HashMap<>();
+        for (String status : ORDER_STATUSES) {
+            ordersByStatus.put(status, 0L);
+        }
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (OrderCounts part : parts) {
+            part.ordersByStatus.forEach((status, orders) -> ordersByStatus.merge(status, orders, Long::sum));
+            totalRevenue = totalRevenue.add(part.revenue);
         }
         
-        java.time.LocalDate today = java.time.LocalDate.now();
-        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        switch (period.toUpperCase()) {
-            case "DAY":
-                return " WHERE CAST(created_at AS DATE) = '" + today.format(formatter) + "'";
-            case "WEEK":
-                java.time.LocalDate weekStart = today.minusWeeks(1);
-                return " WHERE CAST(created_at AS DATE) >= '" + weekStart.format(formatter) + "'";
-            case "MONTH":
-                java.time.LocalDate monthStart = today.minusMonths(1);
-                return " WHERE CAST(created_at AS DATE) >= '" + monthStart.format(formatter) + "'";
-            case "YEAR":
-                java.time.LocalDate yearStart = today.minusYears(1);
-                return " WHERE CAST(created_at AS DATE) >= '" + yearStart.format(formatter) + "'";
-            default:
-                return "";
+        stats.setTotalOrders(ordersByStatus.values().stream().mapToLong(Long::longValue).sum());
+        stats.setTotalRevenue(totalRevenue);
+        stats.setPendingOrders(ordersByStatus.get("PENDING"));
+        stats.setCompletedOrders(ordersByStatus.get("DELIVERED"));
+        stats.setCancelledOrders(ordersByStatus.get("CANCELLED"));
+        stats.setOrdersByStatus(ordersByStatus);
+    }
+    
+    // One grouped query over the range: a single pass yields every status count and the paid revenue
+    private OrderCounts queryOrderCounts(String sql, String column, DateRange range, boolean timestamps) {
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (range.from != null) {
+            conditions.add(column + " >= ?");
+            args.add(timestamps ? Timestamp.valueOf(range.from.atStartOfDay()) : Date.valueOf(range.from));
         }
+        if (range.to != null) {
+            conditions.add(column + " < ?");
+            args.add(timestamps ? Timestamp.valueOf(range.to.atStartOfDay()) : Date.valueOf(range.to));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        
+        OrderCounts counts = new OrderCounts();
+        jdbcTemplate.query(String.format(sql, where), rs -> {
+            counts.ordersByStatus.merge(rs.getString("status"), rs.getLong("orders"), Long::sum);
+            counts.revenue = counts.revenue.add(rs.getBigDecimal("revenue"));
+        }, args.toArray());
+        return counts;
+    }
+    
+    private static class OrderCounts {
+        private final Map<String, Long> ordersByStatus = new HashMap<>();
+        private BigDecimal revenue = BigDecimal.ZERO;
     }
 }
 
@@ -0,0 +1,111 @@
+package com.phonecase.statistics.sketch;
+
+import java.nio.ByteBuffer;
+
+// HyperLogLog distinct counter over 64-bit ids with 2^12 one-byte registers: about 1.6% standard
+// error in 4 KB. Sketches of different days merge by taking the register-wise maximum, so the
+// distinct count of any window is the estimate of the merged sketches.
+//
+// Serialized as [precision, encoding, registers...]. Sparse sketches (few ids, e.g. one product on
+// one day) store only their non-zero registers as (index, value) pairs.
+public class HyperLogLog {
+    
+    public static final int PRECISION = 12;
+    
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    
+    private final byte[] registers;
+    
+    public HyperLogLog() {
+        registers = new byte[REGISTERS];
+    }
+    
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+    
+    public void add(long id) {
+        long hash = mix(id);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Position of the first 1 bit after the index bits; the low bits are padded so it is at most 53
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+    
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+    
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                used++;
+            }
+        }
+        if (used * 3 < REGISTERS) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + used * 3);
+            buffer.put((byte) PRECISION).put(SPARSE);
+            for (int i = 0; i < REGISTERS; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + REGISTERS);
+        buffer.put((byte) PRECISION).put(DENSE).put(registers);
+        return buffer.array();
+    }
+    
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != PRECISION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog precision");
+        }
+        byte[] registers = new byte[REGISTERS];
+        if (buffer.get() == SPARSE) {
+            while (buffer.hasRemaining()) {
+                int index = buffer.getShort() & 0xFFFF;
+                registers[index] = buffer.get();
+            }
+        } else {
+            buffer.get(registers);
+        }
+        return new HyperLogLog(registers);
+    }
+    
+    // SplitMix64 finalizer: spreads sequential ids over all 64 bits
+    private static long mix(long id) {
+        long z = id + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
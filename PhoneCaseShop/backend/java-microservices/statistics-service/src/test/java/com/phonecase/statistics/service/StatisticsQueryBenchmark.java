@@ -0,0 +1,170 @@
+package com.phonecase.statistics.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The order figures of one dashboard request on a seeded 1M-row orders table in H2, two years of
+// orders with an index on created_at like IX_orders_created_at.
+//   literal: the old eleven queries, one per figure, filtering on CAST(created_at AS DATE) against a
+//            date literal baked into the text
+//   grouped: StatisticsService.LIVE_COUNTS_SQL, one GROUP BY status over a half-open
+//            created_at >= ? AND created_at < ? range, prepared once
+// Both read the same rows; the setup fails the run if their counts differ or are empty.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class StatisticsQueryBenchmark {
+    
+    private static final int ORDERS = 1_000_000;
+    
+    private static final List<String> STATUSES =
+            List.of("PENDING", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED", "RETURNED");
+    
+    // Deterministic spread: status, amount, payment status and age in seconds are hashes of the id
+    private static final String SEED_SQL =
+            "INSERT INTO orders (id, status, total_amount, payment_status, created_at) " +
+            "SELECT X, " +
+            "CASE MOD(X * 7919, 6) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PROCESSING' WHEN 2 THEN 'SHIPPED' " +
+            "WHEN 3 THEN 'DELIVERED' WHEN 4 THEN 'CANCELLED' ELSE 'RETURNED' END, " +
+            "MOD(X * 31, 100000) / 100.0, " +
+            "CASE MOD(X * 13, 3) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PAID' ELSE 'REFUNDED' END, " +
+            "DATEADD(SECOND, -MOD(X * 2654435761, 730 * 86400), CURRENT_TIMESTAMP) " +
+            "FROM SYSTEM_RANGE(1, " + ORDERS + ")";
+    
+    @Param({"DAY", "MONTH", "YEAR"})
+    public String period;
+    
+    private Connection connection;
+    private Statement literal;
+    private PreparedStatement grouped;
+    private DateRange range;
+    private String dateFilter;
+    
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        // H2 otherwise hands back the previous result of a query whose tables have not changed
+        connection = DriverManager.getConnection("jdbc:h2:mem:statistics_bench;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS orders");
+            ddl.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, status VARCHAR(50) NOT NULL, " +
+                    "total_amount DECIMAL(18, 2) NOT NULL, payment_status VARCHAR(50), created_at TIMESTAMP NOT NULL)");
+            ddl.execute(SEED_SQL);
+            ddl.execute("CREATE INDEX IX_orders_created_at ON orders (created_at)");
+            ddl.execute("ANALYZE");
+        }
+        
+        range = DateRange.forPeriod(period, null);
+        // What buildDateFilter produced for the period
+        String start = range.from.toString();
+        dateFilter = "DAY".equals(period)
+                ? "CAST(created_at AS DATE) = '" + start + "'"
+                : "CAST(created_at AS DATE) >= '" + start + "'";
+        
+        literal = connection.createStatement();
+        grouped = connection.prepareStatement(String.format(StatisticsService.LIVE_COUNTS_SQL,
+                " WHERE created_at >= ? AND created_at < ?"));
+        
+        Map<String, Long> expected = new HashMap<>();
+        long total = countLiteral(expected, null);
+        Map<String, Long> actual = new HashMap<>();
+        countGrouped(actual);
+        long groupedTotal = actual.values().stream().mapToLong(Long::longValue).sum();
+        if (total == 0 || total != groupedTotal || !expected.equals(actual)) {
+            throw new IllegalStateException("literal " + expected + " != grouped " + actual);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE orders");
+        }
+        connection.close();
+    }
+    
+    @Benchmark
+    public long literal(Blackhole blackhole) throws SQLException {
+        return countLiteral(new HashMap<>(), blackhole);
+    }
+    
+    @Benchmark
+    public BigDecimal grouped(Blackhole blackhole) throws SQLException {
+        Map<String, Long> ordersByStatus = new HashMap<>();
+        BigDecimal revenue = countGrouped(ordersByStatus);
+        blackhole.consume(ordersByStatus);
+        return revenue;
+    }
+    
+    // The old getStatistics order figures: total, paid revenue, the three headline statuses and
+    // every status again for ordersByStatus
+    private long countLiteral(Map<String, Long> ordersByStatus, Blackhole blackhole) throws SQLException {
+        long total = scalar("SELECT COUNT(*) FROM orders WHERE " + dateFilter).longValue();
+        BigDecimal revenue = scalar("SELECT COALESCE(SUM(total_amount), 0) FROM orders WHERE payment_status = 'PAID' AND "
+                + dateFilter);
+        for (String status : List.of("PENDING", "DELIVERED", "CANCELLED")) {
+            consume(blackhole, scalar("SELECT COUNT(*) FROM orders WHERE status = '" + status + "' AND " + dateFilter));
+        }
+        for (String status : STATUSES) {
+            long orders = scalar("SELECT COUNT(*) FROM orders WHERE status = '" + status + "' AND " + dateFilter).longValue();
+            if (orders > 0) {
+                ordersByStatus.put(status, orders);
+            }
+        }
+        consume(blackhole, revenue);
+        return total;
+    }
+    
+    private BigDecimal countGrouped(Map<String, Long> ordersByStatus) throws SQLException {
+        grouped.setTimestamp(1, Timestamp.valueOf(range.from.atStartOfDay()));
+        grouped.setTimestamp(2, Timestamp.valueOf(range.to.atStartOfDay()));
+        BigDecimal revenue = BigDecimal.ZERO;
+        try (ResultSet rs = grouped.executeQuery()) {
+            while (rs.next()) {
+                ordersByStatus.merge(rs.getString("status"), rs.getLong("orders"), Long::sum);
+                revenue = revenue.add(rs.getBigDecimal("revenue"));
+            }
+        }
+        return revenue;
+    }
+    
+    private BigDecimal scalar(String sql) throws SQLException {
+        try (ResultSet rs = literal.executeQuery(sql)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+    
+    private static void consume(Blackhole blackhole, Object value) {
+        if (blackhole != null) {
+            blackhole.consume(value);
+        }
+    }
+}
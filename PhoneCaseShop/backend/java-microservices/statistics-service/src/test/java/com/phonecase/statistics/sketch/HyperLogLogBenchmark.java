@@ -0,0 +1,93 @@
+package com.phonecase.statistics.sketch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Distinct buyers of a window of days, counted the two ways BuyerStatsService could.
+//   exact:  the union of every day's buyer ids, what COUNT(DISTINCT user_id) over orders does
+//   sketch: the stored day sketches deserialized and merged, what the service does now
+// Each day has `buyersPerDay` orders from a pool of `customers`, drawn from a fixed seed. The setup
+// prints the sketch's relative error against the exact count for the window.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HyperLogLogBenchmark {
+    
+    @Param({"30", "365"})
+    public int days;
+    
+    @Param({"3000"})
+    public int buyersPerDay;
+    
+    @Param({"200000"})
+    public int customers;
+    
+    private long[][] buyers;
+    private byte[][] sketches;
+    
+    @Setup(Level.Trial)
+    public void seed() {
+        Random random = new Random(42);
+        buyers = new long[days][buyersPerDay];
+        sketches = new byte[days][];
+        for (int day = 0; day < days; day++) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < buyersPerDay; i++) {
+                buyers[day][i] = random.nextInt(customers) + 1;
+                sketch.add(buyers[day][i]);
+            }
+            sketches[day] = sketch.toBytes();
+        }
+        
+        long exact = exact();
+        long estimate = sketch();
+        System.out.printf("%n%d days: exact %d, sketch %d, error %+.2f%%, %d sketch bytes%n", days, exact, estimate,
+                (estimate - exact) * 100.0 / exact, sketchBytes());
+    }
+    
+    @Benchmark
+    public long exact() {
+        Set<Long> distinct = new HashSet<>();
+        for (long[] day : buyers) {
+            for (long userId : day) {
+                distinct.add(userId);
+            }
+        }
+        return distinct.size();
+    }
+    
+    @Benchmark
+    public long sketch() {
+        HyperLogLog merged = new HyperLogLog();
+        for (byte[] day : sketches) {
+            merged.merge(HyperLogLog.fromBytes(day));
+        }
+        return merged.estimate();
+    }
+    
+    private long sketchBytes() {
+        long total = 0;
+        for (byte[] day : sketches) {
+            total += day.length;
+        }
+        return total;
+    }
+}
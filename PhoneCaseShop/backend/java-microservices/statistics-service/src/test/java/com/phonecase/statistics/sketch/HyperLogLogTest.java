@@ -0,0 +1,99 @@
+package com.phonecase.statistics.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+    
+    // 1.04 / sqrt(2^12)
+    private static final double STANDARD_ERROR = 0.01625;
+    
+    @ParameterizedTest
+    @ValueSource(ints = { 1_000, 10_000, 100_000, 1_000_000 })
+    void estimatesWithinThreeStandardErrors(int distinct) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= distinct; id++) {
+            sketch.add(id);
+            sketch.add(id); // repeats do not count
+        }
+        
+        assertThat((double) sketch.estimate()).isCloseTo(distinct, within(3 * STANDARD_ERROR * distinct));
+    }
+    
+    @Test
+    void smallCountsAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 100; id++) {
+            sketch.add(id * 7919);
+        }
+        
+        assertThat(sketch.estimate()).isBetween(98L, 102L);
+    }
+    
+    @Test
+    void errorOverManyRandomSetsMatchesTheStandardError() {
+        Random random = new Random(42);
+        int trials = 50;
+        int distinct = 50_000;
+        double squaredErrors = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            Set<Long> exact = new HashSet<>();
+            HyperLogLog sketch = new HyperLogLog();
+            while (exact.size() < distinct) {
+                long id = random.nextLong();
+                exact.add(id);
+                sketch.add(id);
+            }
+            double error = (sketch.estimate() - distinct) / (double) distinct;
+            squaredErrors += error * error;
+        }
+        
+        assertThat(Math.sqrt(squaredErrors / trials)).isLessThan(1.5 * STANDARD_ERROR);
+    }
+    
+    @Test
+    void mergedDaysCountBuyersOfBothOnce() {
+        // 30 days of 2,000 buyers each from 20,000 customers, so most of them come back
+        Random random = new Random(7);
+        Set<Long> exact = new HashSet<>();
+        HyperLogLog window = new HyperLogLog();
+        for (int day = 0; day < 30; day++) {
+            HyperLogLog daySketch = new HyperLogLog();
+            for (int order = 0; order < 2_000; order++) {
+                long userId = random.nextInt(20_000) + 1;
+                exact.add(userId);
+                daySketch.add(userId);
+            }
+            window.merge(HyperLogLog.fromBytes(daySketch.toBytes()));
+        }
+        
+        assertThat((double) window.estimate()).isCloseTo(exact.size(), within(3 * STANDARD_ERROR * exact.size()));
+    }
+    
+    @Test
+    void sparseAndDenseSketchesSurviveSerialization() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) {
+            sparse.add(id);
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) {
+            dense.add(id);
+        }
+        
+        byte[] sparseBytes = sparse.toBytes();
+        assertThat(sparseBytes.length).isLessThan(2 + (1 << HyperLogLog.PRECISION));
+        assertThat(HyperLogLog.fromBytes(sparseBytes).estimate()).isEqualTo(sparse.estimate());
+        byte[] denseBytes = dense.toBytes();
+        assertThat(denseBytes.length).isEqualTo(2 + (1 << HyperLogLog.PRECISION));
+        assertThat(HyperLogLog.fromBytes(denseBytes).estimate()).isEqualTo(dense.estimate());
+    }
+}
@@ -2,26 +2,50 @@ package com.phonecase.user.service;
 
 import com.phonecase.common.dto.UserDTO;
 import com.phonecase.common.exception.BadRequestException;
+import com.phonecase.common.streaming.JsonArrayStreamer;
 import com.phonecase.user.entity.User;
 import com.phonecase.user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     
+    // Never select the password column for listings
+    private static final String ALL_USERS_SQL =
+            "SELECT id, name, email, role, phone, address, created_at, updated_at FROM users ORDER BY id";
+    
+    private static final RowMapper<UserDTO> USER_ROW_MAPPER = (rs, rowNum) -> {
+        UserDTO dto = new UserDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setEmail(rs.getString("email"));
+        dto.setRole(rs.getString("role"));
+        dto.setPhone(rs.getString("phone"));
+        dto.setAddress(rs.getString("address"));
+        dto.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        dto.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return dto;
+    };
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
     public UserDTO getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -41,10 +65,8 @@ public class UserService {
         return convertToDTO(user);
     }
     
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamAllUsers() {
+        return jsonArrayStreamer.stream(ALL_USERS_SQL, USER_ROW_MAPPER);
     }
     
     public List<UserDTO> getUsersByRole(String role) {
@@ -5,7 +5,6 @@ import { useCreateOrder } from '../../hook/useOrder';
 import { useAuth } from '../../context/AuthContext';
 import { formatCurrency } from '../../util/format';
 import { Loader } from 'lucide-react';
-import { createPayment } from '../../api/paymentAPI';
 import { clearCart } from '../../api/cartAPI';
 import { useQueryClient } from '@tanstack/react-query';
 
@@ -49,18 +48,8 @@ const Order = () => {
         };
 
         try {
-            // Create order
-            const order = await createOrderMutation.mutateAsync(orderData);
-            
-            // Create payment for COD
-            const paymentData = {
-                orderId: order.id,
-                userId: auth?.user?.id,
-                amount: total,
-                paymentMethod: 'COD'
-            };
-            
-            await createPayment(paymentData, auth?.token);
+            // Create order; payment-service creates the COD payment record from the order event
+            await createOrderMutation.mutateAsync(orderData);
             
             // Clear cart after successful order
             try {